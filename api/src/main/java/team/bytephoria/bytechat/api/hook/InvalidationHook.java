@@ -0,0 +1,30 @@
+package team.bytephoria.bytechat.api.hook;
+
+import java.util.UUID;
+
+/**
+ * Signals that cached per-player state derived from permissions is stale.
+ * <p>
+ * ByteChat caches the results of permission checks, such as the chat format
+ * selected for each player. Permission plugins, or any plugin that changes
+ * permissions at runtime, should fire this hook so the next message of the
+ * affected players is resolved against their current permissions.
+ * <p>
+ * Implementations are thread-safe and may be called from any thread.
+ */
+public interface InvalidationHook {
+
+    /**
+     * Invalidates the cached state of a single player.
+     *
+     * @param uuid the unique id of the player whose permissions changed
+     */
+    void invalidate(final UUID uuid);
+
+    /**
+     * Invalidates the cached state of every player, for example after
+     * a group's permissions changed.
+     */
+    void invalidateAll();
+
+}
@@ -0,0 +1,27 @@
+package team.bytephoria.bytechat.api.hook;
+
+import java.util.UUID;
+
+/**
+ * Decides whether a player is hidden from another one.
+ * <p>
+ * ByteChat never suggests a hidden player when completing mentions. Players
+ * hidden through the server's own visibility API are always excluded; vanish
+ * plugins that track hidden players in their own state should register an
+ * implementation of this hook in the services manager.
+ * <p>
+ * Implementations are thread-safe and may be called from any thread,
+ * including the asynchronous tab-completion threads.
+ */
+public interface VisibilityHook {
+
+    /**
+     * Returns whether the target player is hidden from the viewer.
+     *
+     * @param viewer the unique id of the player looking at the target
+     * @param target the unique id of the player who may be hidden
+     * @return {@code true} if the viewer must not see the target
+     */
+    boolean isHidden(final UUID viewer, final UUID target);
+
+}
@@ -0,0 +1,96 @@
+package team.bytephoria.bytechat.api.pipeline;
+
+/**
+ * The shared token buffer a message goes through in the {@link ChatPipeline}.
+ * <p>
+ * The buffer starts as a single text token covering the whole message. Stages
+ * look for what they handle inside the text tokens and {@link #resolve resolve}
+ * it, which splits the text token around the resolved range. Resolved tokens
+ * are final: later stages only ever see the text left between them.
+ * <p>
+ * Token positions always refer to the original {@link #message()}, so stages
+ * never have to copy or re-parse the message.
+ *
+ * @param <S> the type of the message sender
+ * @param <R> the type of the resolved tokens
+ */
+public interface ChatContext<S, R> {
+
+    /**
+     * Returns the player who sent the message.
+     *
+     * @return the sender
+     */
+    S sender();
+
+    /**
+     * Returns the raw message, as written by the sender.
+     *
+     * @return the raw message
+     */
+    String message();
+
+    /**
+     * Returns the number of tokens currently in the buffer.
+     *
+     * @return the number of tokens
+     */
+    int size();
+
+    /**
+     * Returns the index in {@link #message()} where the given token starts.
+     *
+     * @param index the index of the token
+     * @return the start of the token, inclusive
+     */
+    int start(final int index);
+
+    /**
+     * Returns the index in {@link #message()} where the given token ends.
+     *
+     * @param index the index of the token
+     * @return the end of the token, exclusive
+     */
+    int end(final int index);
+
+    /**
+     * Checks whether the given token was already resolved by a stage.
+     *
+     * @param index the index of the token
+     * @return true if the token is resolved, false if it is still text
+     */
+    boolean isResolved(final int index);
+
+    /**
+     * Returns the value the given token was resolved into.
+     *
+     * @param index the index of the token
+     * @return the resolved value, or {@code null} if the token is still text
+     */
+    R component(final int index);
+
+    /**
+     * Returns the text covered by the given token.
+     *
+     * @param index the index of the token
+     * @return the text of the token
+     */
+    default String text(final int index) {
+        return this.message().substring(this.start(index), this.end(index));
+    }
+
+    /**
+     * Resolves a range of a text token. The text before and after the range,
+     * if any, is kept as separate text tokens.
+     *
+     * @param index     the index of the text token
+     * @param start     the start of the range in {@link #message()}, inclusive
+     * @param end       the end of the range in {@link #message()}, exclusive
+     * @param component the value the range is resolved into
+     * @return the index of the resolved token
+     * @throws IllegalArgumentException if the token is already resolved, or the
+     *                                  range is empty or not inside the token
+     */
+    int resolve(final int index, final int start, final int end, final R component);
+
+}
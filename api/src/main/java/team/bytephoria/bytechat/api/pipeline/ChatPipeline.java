@@ -0,0 +1,34 @@
+package team.bytephoria.bytechat.api.pipeline;
+
+import team.bytephoria.bytechat.api.registry.Registry;
+
+/**
+ * The ordered stages every chat message goes through, keyed by stage id.
+ * <p>
+ * ByteChat exposes its pipeline through the services manager, and other
+ * plugins may register their own stages in it instead of listening to the
+ * chat event and parsing the message again. Registering a stage with the id
+ * of an existing one replaces it. Changes apply to the next message.
+ *
+ * @param <S> the type of the message sender
+ * @param <R> the type of the resolved tokens
+ */
+public interface ChatPipeline<S, R> extends Registry<String, ChatStage<S, R>> {
+
+    /**
+     * Registers a stage under its own id.
+     *
+     * @param stage the stage to register
+     */
+    default void register(final ChatStage<S, R> stage) {
+        this.register(stage.id(), stage);
+    }
+
+    /**
+     * Runs every registered stage over the given message.
+     *
+     * @param context the token buffer of the message
+     */
+    void process(final ChatContext<S, R> context);
+
+}
@@ -0,0 +1,30 @@
+package team.bytephoria.bytechat.api.pipeline;
+
+import team.bytephoria.bytechat.api.Identifiable;
+import team.bytephoria.bytechat.api.Prioritizable;
+
+/**
+ * A single step of the {@link ChatPipeline}.
+ * <p>
+ * Stages run in descending {@link #priority()} order, each one over the same
+ * {@link ChatContext}. ByteChat resolves inline tags at priority {@code 300},
+ * mentions at {@code 200}, and turns the remaining text into sanitized
+ * components at {@code 100}. A stage that needs the player's raw text must
+ * therefore run above {@code 100}.
+ * <p>
+ * Stages run on the asynchronous chat threads, so implementations must be
+ * thread-safe.
+ *
+ * @param <S> the type of the message sender
+ * @param <R> the type of the resolved tokens
+ */
+public interface ChatStage<S, R> extends Identifiable, Prioritizable {
+
+    /**
+     * Processes a message.
+     *
+     * @param context the token buffer of the message
+     */
+    void process(final ChatContext<S, R> context);
+
+}
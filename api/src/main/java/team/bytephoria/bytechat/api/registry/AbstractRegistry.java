@@ -22,6 +22,11 @@ public abstract class AbstractRegistry<K, V> implements Registry<K, V> {
         return this.entries.get(key);
     }
 
+    @Override
+    public V unregister(final K key) {
+        return this.entries.remove(key);
+    }
+
     @Override
     public boolean contains(final K key) {
         return this.entries.containsKey(key);
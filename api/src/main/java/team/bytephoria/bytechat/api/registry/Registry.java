@@ -26,6 +26,19 @@ public interface Registry<K, V> {
      */
     V get(final K key);
 
+    /**
+     * Removes an entry from the registry.
+     * <p>
+     * Registries that do not support removal keep this default, which throws.
+     *
+     * @param key the key of the entry to remove
+     * @return the removed value, or {@code null} if not found
+     * @throws UnsupportedOperationException if the registry does not support removal
+     */
+    default V unregister(final K key) {
+        throw new UnsupportedOperationException("This registry does not support removal");
+    }
+
     /**
      * Checks if an entry exists for the given key.
      *
@@ -0,0 +1,39 @@
+package team.bytephoria.bytechat.api.tag;
+
+import team.bytephoria.bytechat.api.Identifiable;
+import team.bytephoria.bytechat.api.Prioritizable;
+
+import java.util.List;
+
+/**
+ * An inline chat tag, written between brackets in a message, such as
+ * {@code [item]} or {@code [balance]}.
+ * <p>
+ * A tag is matched by any of its aliases, ignoring case. When several tags
+ * share an alias, the one with the highest {@link #priority()} is used.
+ * <p>
+ * Tags are resolved on the asynchronous chat threads, so implementations must
+ * be thread-safe.
+ *
+ * @param <S> the type of the message sender
+ * @param <R> the type of the resolved tag
+ */
+public interface ChatTag<S, R> extends Identifiable, Prioritizable {
+
+    /**
+     * Returns the names the tag is written with, without the brackets.
+     *
+     * @return the aliases of the tag
+     */
+    List<String> aliases();
+
+    /**
+     * Resolves the tag for the given sender.
+     *
+     * @param sender the player who sent the message
+     * @return the resolved tag, or {@code null} to leave the text as written,
+     *         for example when the sender may not use the tag
+     */
+    R resolve(final S sender);
+
+}
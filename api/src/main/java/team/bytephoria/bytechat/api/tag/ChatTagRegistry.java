@@ -0,0 +1,26 @@
+package team.bytephoria.bytechat.api.tag;
+
+import team.bytephoria.bytechat.api.registry.Registry;
+
+/**
+ * The registry of the chat tags resolved in messages, keyed by tag id.
+ * <p>
+ * ByteChat exposes its registry through the services manager, and other
+ * plugins may register their own tags in it. Registering a tag with the id of
+ * an existing one replaces it. Changes apply to the next message.
+ *
+ * @param <S> the type of the message sender
+ * @param <R> the type of the resolved tag
+ */
+public interface ChatTagRegistry<S, R> extends Registry<String, ChatTag<S, R>> {
+
+    /**
+     * Registers a tag under its own id.
+     *
+     * @param tag the tag to register
+     */
+    default void register(final ChatTag<S, R> tag) {
+        this.register(tag.id(), tag);
+    }
+
+}
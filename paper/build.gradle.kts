@@ -4,6 +4,7 @@ plugins {
     id("com.gradleup.shadow") version ("9.1.0")
     id("de.eldoria.plugin-yml.paper") version ("0.8.0")
     id("xyz.jpenilla.run-paper") version ("3.0.2")
+    id("me.champeau.jmh") version ("0.7.2")
 }
 
 repositories {
@@ -24,6 +25,18 @@ dependencies {
 
     compileOnly("org.spongepowered:configurate-yaml:4.2.0")
     compileOnly("me.clip:placeholderapi:2.11.6")
+
+    testImplementation("io.papermc.paper:paper-api:1.20.2-R0.1-SNAPSHOT")
+    testImplementation("org.spongepowered:configurate-yaml:4.2.0")
+    testImplementation(platform("org.junit:junit-bom:5.10.2"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
+    jmh("io.papermc.paper:paper-api:1.20.2-R0.1-SNAPSHOT")
+}
+
+jmh {
+    profilers.add("gc")
 }
 
 paper {
@@ -50,6 +63,10 @@ paper {
 
 tasks {
 
+    test {
+        useJUnitPlatform()
+    }
+
     runServer {
         minecraftVersion("1.21.11")
     }
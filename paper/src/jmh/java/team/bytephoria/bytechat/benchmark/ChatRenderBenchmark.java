@@ -0,0 +1,250 @@
+package team.bytephoria.bytechat.benchmark;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import team.bytephoria.bytechat.chat.element.ChatElement;
+import team.bytephoria.bytechat.chat.template.ChatElementTemplate;
+import team.bytephoria.bytechat.chat.template.PlaceholderTable;
+import team.bytephoria.bytechat.chat.template.SlotResolver;
+import team.bytephoria.bytechat.chat.template.TemplateSlot;
+import team.bytephoria.bytechat.serializer.component.ComponentSerializerAdapter;
+import team.bytephoria.bytechat.serializer.component.ComponentSerializerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the allocation of rendering one chat line with a staff-like format:
+ * a prefix and a name carrying a long hover tooltip, a separator, and a message
+ * made of several text and tag segments.
+ * <p>
+ * {@link #baseline} reproduces the render path the plugin used before format
+ * templates: every element is resolved as a string and deserialized for each
+ * message, and the line, hover and message are assembled with repeated
+ * {@link Component#append}. {@link #templates} renders the same format through
+ * compiled {@link ChatElementTemplate}s and builder assembly, as the renderer does.
+ * <p>
+ * {@link #templatesAppend} renders through the same compiled templates but
+ * assembles the message, the runs and the line with repeated
+ * {@link Component#append}, so comparing it with {@link #templates} isolates the
+ * cost of the assembly from the cost of deserializing the format.
+ * <p>
+ * Run with {@code ./gradlew :paper:jmh}; the {@code gc} profiler reports the
+ * bytes allocated per message as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatRenderBenchmark {
+
+    private static final String PLAYER_NAME = "Notch";
+    private static final String RANK_TOKEN = "%luckperms_prefix%";
+    private static final String RANK_VALUE = "Admin";
+
+    /** The number of hover lines on the name element. */
+    @Param({"4", "16"})
+    public int hoverLines;
+
+    /** The number of tag segments in the message. */
+    @Param({"0", "4"})
+    public int tags;
+
+    private ComponentSerializerAdapter adapter;
+    private List<ChatElement> elements;
+    private List<ChatElementTemplate> templates;
+    private PlaceholderTable placeholderTable;
+
+    private List<Component> segments;
+
+    @Setup
+    public void setup() {
+        this.adapter = ComponentSerializerFactory.create("MINI_MESSAGE");
+
+        final List<String> hover = new ArrayList<>(this.hoverLines);
+        for (int i = 0; i < this.hoverLines; i++) {
+            hover.add("<gray>Line " + i + ": <white>{player}</white> is <gold>" + RANK_TOKEN + "</gold>");
+        }
+
+        this.elements = List.of(
+                new ChatElement("<dark_gray>[<red>" + RANK_TOKEN + "</red>]</dark_gray> ", null, null, null),
+                new ChatElement("<white>{player}", hover, ClickEvent.Action.SUGGEST_COMMAND, "/msg {player} "),
+                new ChatElement("<dark_gray> » ", null, null, null),
+                new ChatElement("<gray>{message}", null, null, null)
+        );
+
+        final PlaceholderTable.Builder placeholders = PlaceholderTable.builder();
+        final List<ChatElementTemplate> templates = new ArrayList<>(this.elements.size());
+        for (final ChatElement element : this.elements) {
+            templates.add(ChatElementTemplate.compile(element, this.adapter, placeholders));
+        }
+        this.templates = List.copyOf(templates);
+        this.placeholderTable = placeholders.build();
+
+        // Sanitized text segments interleaved with resolved tag components.
+        final List<Component> segments = new ArrayList<>();
+        segments.add(Component.text("look at this "));
+        for (int i = 0; i < this.tags; i++) {
+            segments.add(Component.text("[item " + i + "]").hoverEvent(HoverEvent.showText(Component.text("Diamond Sword"))));
+            segments.add(Component.text(" and "));
+        }
+        segments.add(Component.text("that's it"));
+        this.segments = List.copyOf(segments);
+    }
+
+    @Benchmark
+    public Component baseline() {
+        Component message = Component.empty();
+        for (final Component segment : this.segments) {
+            message = message.append(segment);
+        }
+
+        final String plainMessage = PlainTextComponentSerializer.plainText().serialize(message);
+        Component line = Component.empty();
+        for (final ChatElement element : this.elements) {
+            if (element.isMessageElement()) {
+                line = line.append(message);
+            } else {
+                line = line.append(this.baselineElement(element, plainMessage));
+            }
+        }
+        return line;
+    }
+
+    @Benchmark
+    public Component templates() {
+        final TextComponent.Builder messageBuilder = Component.text();
+        for (final Component segment : this.segments) {
+            messageBuilder.append(segment);
+        }
+        final Component message = messageBuilder.build();
+
+        final String[] values = new String[this.placeholderTable.size()];
+        Arrays.fill(values, RANK_VALUE);
+        final SlotResolver resolver = new BenchmarkSlotResolver(message, values);
+
+        final List<Component> runs = new ArrayList<>(2);
+        TextComponent.Builder run = Component.text();
+        for (final ChatElementTemplate element : this.templates) {
+            if (element.isMessageElement()) {
+                runs.add(run.build());
+                run = Component.text();
+            } else {
+                run.append(element.render(resolver));
+            }
+        }
+        runs.add(run.build());
+
+        final TextComponent.Builder line = Component.text();
+        for (int i = 0; i < runs.size(); i++) {
+            if (i > 0) {
+                line.append(message);
+            }
+            line.append(runs.get(i));
+        }
+        return line.build();
+    }
+
+    @Benchmark
+    public Component templatesAppend() {
+        Component message = Component.empty();
+        for (final Component segment : this.segments) {
+            message = message.append(segment);
+        }
+
+        final String[] values = new String[this.placeholderTable.size()];
+        Arrays.fill(values, RANK_VALUE);
+        final SlotResolver resolver = new BenchmarkSlotResolver(message, values);
+
+        final List<Component> runs = new ArrayList<>(2);
+        Component run = Component.empty();
+        for (final ChatElementTemplate element : this.templates) {
+            if (element.isMessageElement()) {
+                runs.add(run);
+                run = Component.empty();
+            } else {
+                run = run.append(element.render(resolver));
+            }
+        }
+        runs.add(run);
+
+        Component line = Component.empty();
+        for (int i = 0; i < runs.size(); i++) {
+            if (i > 0) {
+                line = line.append(message);
+            }
+            line = line.append(runs.get(i));
+        }
+        return line;
+    }
+
+    /**
+     * The element rendering of the baseline: placeholders are replaced in the
+     * raw strings, which are then deserialized, and hover lines are joined with
+     * repeated appends.
+     */
+    private @NotNull Component baselineElement(final @NotNull ChatElement element, final @NotNull String plainMessage) {
+        Component component = this.adapter.deserialize(replace(element.text(), plainMessage));
+
+        final List<String> hover = element.hoverLines();
+        if (hover != null && !hover.isEmpty()) {
+            Component tooltip = null;
+            for (final String hoverLine : hover) {
+                final Component rendered = this.adapter.deserialize(replace(hoverLine, plainMessage));
+                tooltip = tooltip == null ? rendered : tooltip.appendNewline().append(rendered);
+            }
+            component = component.hoverEvent(HoverEvent.showText(tooltip));
+        }
+
+        if (element.clickAction() != null && element.clickValue() != null) {
+            component = component.clickEvent(ClickEvent.clickEvent(element.clickAction(), replace(element.clickValue(), plainMessage)));
+        }
+        return component;
+    }
+
+    private static @NotNull String replace(final @NotNull String input, final @NotNull String plainMessage) {
+        return input.replace(RANK_TOKEN, RANK_VALUE)
+                .replace("{player}", PLAYER_NAME)
+                .replace("{message}", plainMessage);
+    }
+
+    private static final class BenchmarkSlotResolver implements SlotResolver {
+
+        private final Component message;
+        private final String[] values;
+
+        private BenchmarkSlotResolver(final @NotNull Component message, final @NotNull String @NotNull [] values) {
+            this.message = message;
+            this.values = values;
+        }
+
+        @Override
+        public @NotNull String resolve(final @NotNull TemplateSlot slot) {
+            return switch (slot.type()) {
+                case PLAYER -> PLAYER_NAME;
+                case MESSAGE -> PlainTextComponentSerializer.plainText().serialize(this.message);
+                case PLACEHOLDER -> slot.placeholderIndex() >= 0 ? this.values[slot.placeholderIndex()] : slot.token();
+            };
+        }
+    }
+
+}
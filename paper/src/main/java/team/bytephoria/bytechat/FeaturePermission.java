@@ -25,6 +25,12 @@ public final class FeaturePermission {
         /** Permission required to execute the /bytechat mute */
         public static final String MUTE = "bytechat.command.mute";
 
+        /** Permission required to execute the /bytechat stats */
+        public static final String STATS = "bytechat.command.stats";
+
+        /** Permission required to execute the /bytechat capabilities */
+        public static final String DEBUG = "bytechat.command.debug";
+
     }
 
     public static final class Feature {
@@ -42,6 +48,9 @@ public final class FeaturePermission {
         /** Allows players to mention other players using @name. */
         public static final String MENTION = "bytechat.format.mention";
 
+        /** Allows players to mention whole groups, such as @everyone. */
+        public static final String MENTION_GROUP = "bytechat.format.mention.group";
+
         /** Allows players to use any supported chat tag. (Wildcard) */
         public static final String TAG = "bytechat.format.tag.*";
 
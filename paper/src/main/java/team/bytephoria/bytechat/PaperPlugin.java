@@ -1,7 +1,11 @@
 package team.bytephoria.bytechat;
 
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import net.kyori.adventure.text.Component;
 import org.bstats.bukkit.Metrics;
+import org.bukkit.entity.Player;
 import org.bukkit.event.HandlerList;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -10,64 +14,119 @@ import org.spongepowered.configurate.ConfigurateException;
 import org.spongepowered.configurate.loader.AbstractConfigurationLoader;
 import org.spongepowered.configurate.yaml.NodeStyle;
 import org.spongepowered.configurate.yaml.YamlConfigurationLoader;
+import team.bytephoria.bytechat.api.hook.InvalidationHook;
+import team.bytephoria.bytechat.api.pipeline.ChatPipeline;
+import team.bytephoria.bytechat.api.pipeline.ChatStage;
+import team.bytephoria.bytechat.api.tag.ChatTagRegistry;
+import team.bytephoria.bytechat.chat.header.HeaderCache;
+import team.bytephoria.bytechat.chat.mention.MentionGroup;
+import team.bytephoria.bytechat.chat.pipeline.MentionStage;
+import team.bytephoria.bytechat.chat.pipeline.SanitizeStage;
+import team.bytephoria.bytechat.chat.pipeline.TagStage;
+import team.bytephoria.bytechat.chat.sanitizer.PlayerInputSanitizer;
 import team.bytephoria.bytechat.commands.ChatCommand;
 import team.bytephoria.bytechat.configuration.ChatConfiguration;
 import team.bytephoria.bytechat.configuration.FormatConfiguration;
+import team.bytephoria.bytechat.hook.PaperInvalidationHook;
 import team.bytephoria.bytechat.listener.AsyncChatListener;
+import team.bytephoria.bytechat.listener.MentionTabCompleteListener;
+import team.bytephoria.bytechat.listener.PlayerConnectionListener;
 import team.bytephoria.bytechat.loader.ChatFormatLoader;
 import team.bytephoria.bytechat.manager.ChatManager;
+import team.bytephoria.bytechat.placeholder.PlaceholderCache;
+import team.bytephoria.bytechat.player.AudienceIndex;
+import team.bytephoria.bytechat.player.PlayerNameIndex;
+import team.bytephoria.bytechat.placeholder.PlaceholderResolver;
 import team.bytephoria.bytechat.registry.ChatFormatRegistry;
+import team.bytephoria.bytechat.registry.PaperChatPipeline;
+import team.bytephoria.bytechat.registry.PaperChatTagRegistry;
 import team.bytephoria.bytechat.serializer.component.ComponentSerializerAdapter;
 import team.bytephoria.bytechat.serializer.component.ComponentSerializerFactory;
+import team.bytephoria.bytechat.service.CapabilityService;
+import team.bytephoria.bytechat.service.EntitySnapshotService;
+import team.bytephoria.bytechat.service.MentionCompletionService;
+import team.bytephoria.bytechat.service.MentionNotifier;
 import team.bytephoria.bytechat.service.MentionResolverService;
 import team.bytephoria.bytechat.chat.ChatMuteState;
 import team.bytephoria.bytechat.service.TagResolverService;
+import team.bytephoria.bytechat.ui.PreviewInventoryTracker;
+import team.bytephoria.bytechat.ui.PreviewStore;
 import team.bytephoria.bytechat.ui.listener.InventoryClickListener;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public final class PaperPlugin extends JavaPlugin {
 
-    private ChatConfiguration chatConfiguration;
+    /** How often expired preview snapshots are dropped and idle ones compacted. */
+    private static final long PREVIEW_SWEEP_INTERVAL_SECONDS = 30L;
 
-    private ComponentSerializerAdapter componentSerializerAdapter;
-    private ComponentSerializerAdapter chatSerializerAdapter;
+    /** Kept across reloads, so tags registered by other plugins survive them. */
+    private final PaperChatTagRegistry chatTagRegistry = new PaperChatTagRegistry();
 
-    private ChatFormatRegistry chatFormatRegistry;
-    private ChatManager chatManager;
-    private MentionResolverService mentionResolverService;
-    private ChatMuteState chatMuteState;
-    private TagResolverService tagResolverService;
+    /** Kept across reloads, so stages registered by other plugins survive them. */
+    private final PaperChatPipeline chatPipeline = new PaperChatPipeline(this.getLogger());
 
-    private Metrics metrics;
+    /**
+     * The configuration-bound state currently in use. It is replaced as a whole
+     * by {@link #reload()}, and never observed half-built.
+     */
+    private volatile PluginRuntime runtime;
 
-    @Override
-    public void onEnable() {
-        this.chatConfiguration = this.loadConfiguration("config", ChatConfiguration.class, true);
+    /** Serializes joins, quits and world changes with runtime swaps. */
+    private final Object onlinePlayersLock = new Object();
 
-        final String serializerType = this.chatConfiguration.settings().serializer();
-        final String chatSerializerType = this.chatConfiguration.settings().playerInputSerializer();
+    /** The reload in progress, if any, so concurrent reloads share a single one. */
+    private CompletableFuture<Void> pendingReload;
 
-        this.componentSerializerAdapter = ComponentSerializerFactory.create(serializerType);
-        this.chatSerializerAdapter = ComponentSerializerFactory.create(chatSerializerType);
+    private ChatMuteState chatMuteState;
+    private CapabilityService capabilityService;
+    private PlayerNameIndex playerNameIndex;
+    private MentionCompletionService mentionCompletionService;
+    private PreviewInventoryTracker previewInventoryTracker;
 
-        this.chatFormatRegistry = new ChatFormatRegistry();
-        this.chatManager = new ChatManager(this.chatFormatRegistry, this.chatConfiguration);
-        this.mentionResolverService = new MentionResolverService(this.chatConfiguration);
-        this.tagResolverService = new TagResolverService(this.chatConfiguration);
-        this.chatMuteState = new ChatMuteState();
+    /** Kept across reloads, so preview links sent before one keep working. */
+    private PreviewStore previewStore;
+    private ScheduledTask previewSweepTask;
 
-        final FormatConfiguration formatConfiguration = this.loadConfiguration("formats", FormatConfiguration.class, true);
-        if (formatConfiguration != null) {
-            new ChatFormatLoader(this.chatFormatRegistry, formatConfiguration).load();
-        }
+    private Metrics metrics;
 
-        if (this.chatConfiguration.chat().enabled()) {
-            this.getServer().getPluginManager().registerEvents(new AsyncChatListener(this), this);
-            this.getServer().getPluginManager().registerEvents(new InventoryClickListener(), this);
-        }
+    @Override
+    public void onEnable() {
+        this.chatMuteState = new ChatMuteState();
+        this.capabilityService = new CapabilityService();
+        this.playerNameIndex = new PlayerNameIndex();
+        this.playerNameIndex.reset(this.getServer().getOnlinePlayers());
+        this.mentionCompletionService = new MentionCompletionService(this.capabilityService);
+        this.previewInventoryTracker = new PreviewInventoryTracker();
+        // Configured from the loaded file when the first runtime is published.
+        this.previewStore = new PreviewStore(new ChatConfiguration.Tags.PreviewStore());
+
+        this.publish(this.loadRuntime());
+
+        this.previewSweepTask = this.getServer().getAsyncScheduler().runAtFixedRate(
+                this,
+                task -> this.previewStore.sweep(),
+                PREVIEW_SWEEP_INTERVAL_SECONDS,
+                PREVIEW_SWEEP_INTERVAL_SECONDS,
+                TimeUnit.SECONDS
+        );
+
+        // Registered once: the listeners read the current runtime on every event,
+        // so they follow reloads without being registered again.
+        this.getServer().getPluginManager().registerEvents(new AsyncChatListener(this), this);
+        this.getServer().getPluginManager().registerEvents(new InventoryClickListener(this.previewInventoryTracker), this);
+        this.getServer().getPluginManager().registerEvents(new PlayerConnectionListener(this), this);
+        this.getServer().getPluginManager().registerEvents(new MentionTabCompleteListener(this), this);
 
         this.getServer().getCommandMap().register("bytechat", new ChatCommand(this));
+        this.getServer().getServicesManager().register(InvalidationHook.class, new PaperInvalidationHook(this), this, ServicePriority.Normal);
+        this.getServer().getServicesManager().register(ChatTagRegistry.class, this.chatTagRegistry, this, ServicePriority.Normal);
+        this.getServer().getServicesManager().register(ChatPipeline.class, this.chatPipeline, this, ServicePriority.Normal);
 
         this.metrics = new Metrics(this, 27686);
     }
@@ -75,61 +134,240 @@ public final class PaperPlugin extends JavaPlugin {
     @Override
     public void onDisable() {
         HandlerList.unregisterAll(this);
+        this.getServer().getServicesManager().unregisterAll(this);
         this.getServer().getCommandMap().getKnownCommands().remove("bytechat");
 
         if (this.metrics != null) {
             this.metrics.shutdown();
         }
 
-        if (this.chatFormatRegistry != null) {
-            this.chatFormatRegistry.clearAll();
+        if (this.previewSweepTask != null) {
+            this.previewSweepTask.cancel();
+        }
+
+        if (this.previewInventoryTracker != null) {
+            this.previewInventoryTracker.closeAll(this);
+        }
+
+        if (this.runtime != null) {
+            this.runtime.retire();
+        }
+
+        if (this.previewStore != null) {
+            this.previewStore.clear();
         }
 
         this.metrics = null;
-        this.chatMuteState = null;
-        this.mentionResolverService = null;
-        this.chatManager = null;
-        this.chatFormatRegistry = null;
-        this.tagResolverService = null;
-        this.componentSerializerAdapter = null;
-        this.chatSerializerAdapter = null;
-        this.chatConfiguration = null;
+        this.previewSweepTask = null;
+    }
+
+    /**
+     * Reloads the configuration files without tearing the plugin down.
+     * <p>
+     * The files are parsed and the formats compiled on an asynchronous thread,
+     * while chat keeps running on the current runtime. The new runtime is then
+     * published on the global region thread with a single reference swap. If
+     * loading fails, the current runtime is kept.
+     *
+     * @return a future completed once the new runtime is in use
+     */
+    public synchronized @NotNull CompletableFuture<Void> reload() {
+        if (this.pendingReload != null && !this.pendingReload.isDone()) {
+            return this.pendingReload;
+        }
+
+        final CompletableFuture<Void> reload = new CompletableFuture<>();
+        this.getServer().getAsyncScheduler().runNow(this, loadTask -> {
+            final PluginRuntime next;
+            try {
+                next = this.loadRuntime();
+            } catch (final RuntimeException exception) {
+                reload.completeExceptionally(exception);
+                return;
+            }
+
+            this.getServer().getGlobalRegionScheduler().execute(this, () -> {
+                if (!this.isEnabled()) {
+                    reload.cancel(false);
+                    return;
+                }
+
+                try {
+                    this.publish(next);
+                    reload.complete(null);
+                } catch (final RuntimeException exception) {
+                    reload.completeExceptionally(exception);
+                }
+            });
+        });
+
+        this.pendingReload = reload;
+        return reload;
     }
 
-    // I hate writing reload functions... but anything for my users!
-    public void reload() {
-        this.onDisable();
-        this.onEnable();
+    public PluginRuntime runtime() {
+        return this.runtime;
+    }
+
+    /**
+     * Applies a join, quit or world change to the runtime in use.
+     * <p>
+     * Updates are serialized with runtime swaps: each one lands either on the
+     * previous runtime before the next one is filled from the player index, or
+     * on the next runtime once it is in use, and never on a runtime that has
+     * already been replaced. On Folia, where joins run on region threads while
+     * reloads are published on the global one, this keeps the audience index
+     * of a new runtime from missing a player or keeping one who left.
+     */
+    public void updateOnlinePlayers(final @NotNull Consumer<PluginRuntime> update) {
+        synchronized (this.onlinePlayersLock) {
+            update.accept(this.runtime);
+        }
     }
 
-    public TagResolverService tagResolverService() {
-        return this.tagResolverService;
+    public PaperChatPipeline chatPipeline() {
+        return this.chatPipeline;
     }
 
-    public MentionResolverService mentionResolverService() {
-        return this.mentionResolverService;
+    public PaperChatTagRegistry chatTagRegistry() {
+        return this.chatTagRegistry;
     }
 
-    public ChatConfiguration chatConfiguration() {
-        return this.chatConfiguration;
+    public CapabilityService capabilityService() {
+        return this.capabilityService;
     }
 
-    public ComponentSerializerAdapter serializerAdapter() {
-        return this.componentSerializerAdapter;
+    public PlayerNameIndex playerNameIndex() {
+        return this.playerNameIndex;
     }
 
-    public ComponentSerializerAdapter chatSerializerAdapter() {
-        return this.chatSerializerAdapter;
+    public MentionCompletionService mentionCompletionService() {
+        return this.mentionCompletionService;
     }
 
-    public ChatManager chatManager() {
-        return this.chatManager;
+    public PreviewStore previewStore() {
+        return this.previewStore;
     }
 
     public ChatMuteState muteService() {
         return this.chatMuteState;
     }
 
+    /**
+     * Parses the configuration files and builds every configuration-bound service
+     * and format from them. Nothing shared is modified, so it is safe to call
+     * from any thread while chat keeps running.
+     */
+    private @NotNull PluginRuntime loadRuntime() {
+        final ChatConfiguration chatConfiguration = this.loadConfiguration("config", ChatConfiguration.class, true);
+        if (chatConfiguration == null) {
+            throw new IllegalStateException("config.yml could not be read");
+        }
+
+        final String serializerType = chatConfiguration.settings().serializer();
+        final String chatSerializerType = chatConfiguration.settings().playerInputSerializer();
+
+        final ComponentSerializerAdapter componentSerializerAdapter = ComponentSerializerFactory.create(serializerType);
+        final ComponentSerializerAdapter chatSerializerAdapter = ComponentSerializerFactory.create(chatSerializerType);
+        final PlayerInputSanitizer playerInputSanitizer = new PlayerInputSanitizer(chatSerializerAdapter);
+
+        final ChatFormatRegistry chatFormatRegistry = new ChatFormatRegistry();
+        final FormatConfiguration formatConfiguration = this.loadConfiguration("formats", FormatConfiguration.class, true);
+        if (formatConfiguration != null) {
+            new ChatFormatLoader(chatFormatRegistry, formatConfiguration, componentSerializerAdapter).load();
+        }
+        final ChatManager chatManager = new ChatManager(chatFormatRegistry, chatConfiguration);
+
+        final List<MentionGroup> mentionGroups = MentionGroup.fromConfiguration(
+                chatConfiguration.chat().mentions().groups(),
+                chatSerializerAdapter
+        );
+        final List<String> groupPermissions = new ArrayList<>();
+        for (final MentionGroup mentionGroup : mentionGroups) {
+            if (mentionGroup.permission() != null) {
+                groupPermissions.add(mentionGroup.permission());
+            }
+        }
+        final AudienceIndex audienceIndex = new AudienceIndex(groupPermissions);
+
+        final MentionNotifier mentionNotifier = new MentionNotifier(this, chatConfiguration.chat().mentions());
+        final MentionResolverService mentionResolverService = new MentionResolverService(
+                chatConfiguration,
+                chatSerializerAdapter,
+                this.playerNameIndex,
+                mentionNotifier,
+                mentionGroups,
+                audienceIndex,
+                this.capabilityService
+        );
+
+        final EntitySnapshotService entitySnapshotService = new EntitySnapshotService(this, chatConfiguration.chat().tags().capture());
+        final TagResolverService tagResolverService = new TagResolverService(
+                chatConfiguration,
+                this.capabilityService,
+                this.chatTagRegistry,
+                this.previewStore,
+                entitySnapshotService,
+                this.previewInventoryTracker
+        );
+
+        final PlaceholderCache placeholderCache = new PlaceholderCache(
+                this,
+                chatConfiguration.placeholders().cache(),
+                PlaceholderResolver::setPlaceholders
+        );
+        final HeaderCache headerCache = new HeaderCache(chatConfiguration.chat().headerCache());
+
+        final List<ChatStage<Player, Component>> builtinStages = List.of(
+                new TagStage(chatConfiguration, this.capabilityService, tagResolverService),
+                new MentionStage(chatConfiguration, this.capabilityService, mentionResolverService),
+                new SanitizeStage(chatConfiguration, this.capabilityService, playerInputSanitizer)
+        );
+
+        return new PluginRuntime(
+                chatConfiguration,
+                componentSerializerAdapter,
+                chatSerializerAdapter,
+                playerInputSanitizer,
+                chatFormatRegistry,
+                chatManager,
+                audienceIndex,
+                mentionNotifier,
+                mentionResolverService,
+                entitySnapshotService,
+                tagResolverService,
+                builtinStages,
+                placeholderCache,
+                headerCache
+        );
+    }
+
+    /**
+     * Makes the given runtime the one in use and retires the previous one.
+     * <p>
+     * The audience index is filled from the player index and the runtime swapped
+     * under the same lock as {@link #updateOnlinePlayers}, so no join or quit
+     * handled meanwhile is lost. The built-in tags and stages belong to the
+     * runtime, so they are swapped along with it.
+     */
+    private void publish(final @NotNull PluginRuntime next) {
+        this.capabilityService.configure(next.chatConfiguration().settings());
+        this.previewStore.configure(next.chatConfiguration().chat().tags().previewStore());
+        this.capabilityService.invalidateAll();
+
+        final PluginRuntime previous;
+        synchronized (this.onlinePlayersLock) {
+            next.audienceIndex().reset(this.playerNameIndex.players());
+            previous = this.runtime;
+            this.runtime = next;
+        }
+        this.mentionCompletionService.configure(next.chatConfiguration().chat());
+
+        if (previous != null) {
+            previous.retire();
+        }
+    }
+
     private @NotNull AbstractConfigurationLoader<@NotNull CommentedConfigurationNode> createConfiguration(final @NotNull String fileName, final boolean copyFromResources) {
         final File file = this.resolveFile(fileName);
         if (copyFromResources && !file.exists()) {
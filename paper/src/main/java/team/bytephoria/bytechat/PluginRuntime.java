@@ -0,0 +1,78 @@
+package team.bytephoria.bytechat;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import team.bytephoria.bytechat.api.pipeline.ChatStage;
+import team.bytephoria.bytechat.chat.header.HeaderCache;
+import team.bytephoria.bytechat.chat.sanitizer.PlayerInputSanitizer;
+import team.bytephoria.bytechat.configuration.ChatConfiguration;
+import team.bytephoria.bytechat.manager.ChatManager;
+import team.bytephoria.bytechat.placeholder.PlaceholderCache;
+import team.bytephoria.bytechat.player.AudienceIndex;
+import team.bytephoria.bytechat.registry.ChatFormatRegistry;
+import team.bytephoria.bytechat.serializer.component.ComponentSerializerAdapter;
+import team.bytephoria.bytechat.service.EntitySnapshotService;
+import team.bytephoria.bytechat.service.MentionNotifier;
+import team.bytephoria.bytechat.service.MentionResolverService;
+import team.bytephoria.bytechat.service.TagResolverService;
+
+import java.util.List;
+
+/**
+ * Everything built from the configuration files, as loaded at one point in time.
+ * <p>
+ * A runtime is fully built, formats included, before {@link PaperPlugin} publishes
+ * it through a single volatile reference, and it is never modified afterwards.
+ * Event handlers read the current runtime once and use it for the whole event,
+ * so a reload can never expose a half-built or torn-down state to them.
+ * <p>
+ * State that does not depend on the configuration, such as the online player
+ * indexes, the registries other plugins add to or the snapshots behind preview
+ * links already sent, is kept by the plugin itself and shared by every runtime.
+ *
+ * @param chatConfiguration      the parsed {@code config.yml}
+ * @param serializerAdapter      the serializer used for formats
+ * @param chatSerializerAdapter  the serializer used for player input
+ * @param playerInputSanitizer   the sanitizer of player-written text
+ * @param chatFormatRegistry     the compiled formats of {@code formats.yml}
+ * @param chatManager            selects the format of each player
+ * @param audienceIndex          the audiences of the configured mention groups
+ * @param mentionNotifier        plays the configured mention sound
+ * @param mentionResolverService resolves mentions with the configured format
+ * @param entitySnapshotService  captures player state for tags
+ * @param tagResolverService     resolves the built-in tags
+ * @param builtinStages          the built-in stages of the chat pipeline
+ * @param placeholderCache       caches PlaceholderAPI values
+ * @param headerCache            caches the rendered elements around messages
+ */
+public record PluginRuntime(
+        @NotNull ChatConfiguration chatConfiguration,
+        @NotNull ComponentSerializerAdapter serializerAdapter,
+        @NotNull ComponentSerializerAdapter chatSerializerAdapter,
+        @NotNull PlayerInputSanitizer playerInputSanitizer,
+        @NotNull ChatFormatRegistry chatFormatRegistry,
+        @NotNull ChatManager chatManager,
+        @NotNull AudienceIndex audienceIndex,
+        @NotNull MentionNotifier mentionNotifier,
+        @NotNull MentionResolverService mentionResolverService,
+        @NotNull EntitySnapshotService entitySnapshotService,
+        @NotNull TagResolverService tagResolverService,
+        @NotNull List<ChatStage<Player, Component>> builtinStages,
+        @NotNull PlaceholderCache placeholderCache,
+        @NotNull HeaderCache headerCache
+) {
+
+    /**
+     * Releases the caches of a runtime that has been replaced.
+     * <p>
+     * Renders still holding this runtime keep working: the caches are only
+     * emptied, and the formats and services are left as they are.
+     */
+    public void retire() {
+        this.placeholderCache.clear();
+        this.headerCache.clear();
+        this.entitySnapshotService.clear();
+    }
+
+}
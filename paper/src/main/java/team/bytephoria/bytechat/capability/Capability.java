@@ -0,0 +1,48 @@
+package team.bytephoria.bytechat.capability;
+
+import org.jetbrains.annotations.NotNull;
+import team.bytephoria.bytechat.FeaturePermission;
+
+/**
+ * Every permission-gated ByteChat capability, one per {@link FeaturePermission}
+ * constant.
+ * <p>
+ * Each constant owns one bit of a {@link CapabilitySnapshot}, so the number of
+ * constants must stay below 64.
+ */
+public enum Capability {
+
+    COMMAND_MAIN(FeaturePermission.Command.MAIN),
+    COMMAND_RELOAD(FeaturePermission.Command.RELOAD),
+    COMMAND_MUTE(FeaturePermission.Command.MUTE),
+    COMMAND_STATS(FeaturePermission.Command.STATS),
+    COMMAND_DEBUG(FeaturePermission.Command.DEBUG),
+
+    BYPASS_MUTE(FeaturePermission.Feature.BYPASS_MUTE),
+
+    FORMAT_COLOR(FeaturePermission.Format.COLOR),
+    FORMAT_MENTION(FeaturePermission.Format.MENTION),
+    FORMAT_MENTION_GROUP(FeaturePermission.Format.MENTION_GROUP),
+    FORMAT_TAG(FeaturePermission.Format.TAG),
+    FORMAT_TAG_INVENTORY(FeaturePermission.Format.TAG_INVENTORY),
+    FORMAT_TAG_ARMOR(FeaturePermission.Format.TAG_ARMOR),
+    FORMAT_TAG_ITEM(FeaturePermission.Format.TAG_ITEM),
+    FORMAT_TAG_ENDERCHEST(FeaturePermission.Format.TAG_ENDERCHEST);
+
+    private final String permission;
+    private final long mask;
+
+    Capability(final @NotNull String permission) {
+        this.permission = permission;
+        this.mask = 1L << this.ordinal();
+    }
+
+    public @NotNull String permission() {
+        return this.permission;
+    }
+
+    long mask() {
+        return this.mask;
+    }
+
+}
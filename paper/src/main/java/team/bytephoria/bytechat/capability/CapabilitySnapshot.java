@@ -0,0 +1,44 @@
+package team.bytephoria.bytechat.capability;
+
+import org.bukkit.permissions.Permissible;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An immutable record of which {@link Capability capabilities} a player had
+ * when the snapshot was taken, stored as a single bitset.
+ * <p>
+ * Reading a capability is a single bit test, so a snapshot can be consulted as
+ * often as needed from any thread, instead of going through the permissions
+ * plugin for every check.
+ *
+ * @param bits one bit per capability, indexed by {@link Capability#ordinal()}
+ */
+public record CapabilitySnapshot(long bits) {
+
+    /** A snapshot without any capability. */
+    public static final CapabilitySnapshot NONE = new CapabilitySnapshot(0L);
+
+    /**
+     * Checks every capability against the permissible's current permissions.
+     *
+     * @param permissible the permissible entity (usually a Player)
+     * @return the computed snapshot
+     */
+    public static @NotNull CapabilitySnapshot compute(final @NotNull Permissible permissible) {
+        long bits = 0L;
+        for (final Capability capability : Capability.values()) {
+            if (permissible.hasPermission(capability.permission())) {
+                bits = bits | capability.mask();
+            }
+        }
+        return new CapabilitySnapshot(bits);
+    }
+
+    /**
+     * Returns {@code true} if the snapshot grants the given capability.
+     */
+    public boolean has(final @NotNull Capability capability) {
+        return (this.bits & capability.mask()) != 0L;
+    }
+
+}
@@ -5,8 +5,10 @@ import org.jetbrains.annotations.Nullable;
 import team.bytephoria.bytechat.api.Identifiable;
 import team.bytephoria.bytechat.api.Prioritizable;
 import team.bytephoria.bytechat.chat.element.ChatElement;
+import team.bytephoria.bytechat.chat.template.ChatElementTemplate;
+import team.bytephoria.bytechat.chat.template.PlaceholderTable;
 
-import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 public class ChatFormat implements Identifiable, Prioritizable {
@@ -16,17 +18,26 @@ public class ChatFormat implements Identifiable, Prioritizable {
     private final int priority;
 
     private final Map<String, ChatElement> chatElements;
+    private final List<ChatElementTemplate> elementTemplates;
+    private final PlaceholderTable placeholderTable;
+    private final boolean headerCacheable;
 
     public ChatFormat(
             final @NotNull String id,
             final @Nullable String permission,
             final int priority,
-            final @NotNull Map<String, ChatElement> chatElements
+            final @NotNull Map<String, ChatElement> chatElements,
+            final @NotNull List<ChatElementTemplate> elementTemplates,
+            final @NotNull PlaceholderTable placeholderTable
     ) {
         this.id = id;
         this.permission = permission;
         this.priority = priority;
         this.chatElements = chatElements;
+        this.elementTemplates = elementTemplates;
+        this.placeholderTable = placeholderTable;
+        this.headerCacheable = elementTemplates.stream()
+                .noneMatch(template -> !template.isMessageElement() && template.referencesMessage());
     }
 
     @Override
@@ -43,12 +54,32 @@ public class ChatFormat implements Identifiable, Prioritizable {
         return this.priority;
     }
 
-    public Collection<ChatElement> allElements() {
-        return this.chatElements.values();
-    }
-
     public Map<String, ChatElement> chatElements() {
         return this.chatElements;
     }
 
+    /**
+     * Returns the compiled elements of this format, in layout order.
+     */
+    public List<ChatElementTemplate> elementTemplates() {
+        return this.elementTemplates;
+    }
+
+    /**
+     * Returns the PlaceholderAPI tokens referenced by the compiled elements.
+     */
+    public PlaceholderTable placeholderTable() {
+        return this.placeholderTable;
+    }
+
+    /**
+     * Returns {@code true} if the elements around the message body render the same
+     * for every message of a player, which is the case unless one of them
+     * references {@code {message}}. The message elements themselves are not
+     * part of the cached runs and may reference it freely.
+     */
+    public boolean isHeaderCacheable() {
+        return this.headerCacheable;
+    }
+
 }
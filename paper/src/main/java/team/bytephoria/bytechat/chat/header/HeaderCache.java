@@ -0,0 +1,124 @@
+package team.bytephoria.bytechat.chat.header;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import team.bytephoria.bytechat.chat.format.ChatFormat;
+import team.bytephoria.bytechat.configuration.ChatConfiguration;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caches the rendered elements around the message body, per player.
+ * <p>
+ * A chat format is rendered as runs of consecutive elements separated by its
+ * message elements: the run before the message, the run after it, and one more
+ * per additional message element. For a given player and format these runs only
+ * change when placeholder values do, so they are reused for consecutive messages
+ * until the configured TTL expires.
+ * <p>
+ * A cached header is discarded when the player's format or display name changes,
+ * and {@link #invalidate(UUID)} drops it when the player quits. Formats that
+ * reference {@code {message}} outside the message element are never cached.
+ */
+public final class HeaderCache {
+
+    private final ChatConfiguration.HeaderCache configuration;
+    private final long ttlNanos;
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public HeaderCache(final @NotNull ChatConfiguration.HeaderCache configuration) {
+        this.configuration = configuration;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(configuration.ttlMillis());
+    }
+
+    /**
+     * Returns the rendered runs of the given format for the player, rendering
+     * them if no valid cached copy exists.
+     *
+     * @param player      the player sending the message
+     * @param displayName the current display name of the player
+     * @param chatFormat  the format selected for the player
+     * @param renderer    renders the runs when they are not cached
+     * @return the runs around the message elements, in layout order
+     */
+    public @NotNull List<Component> runs(
+            final @NotNull Player player,
+            final @NotNull Component displayName,
+            final @NotNull ChatFormat chatFormat,
+            final @NotNull Supplier<List<Component>> renderer
+    ) {
+        if (!this.configuration.enabled() || this.ttlNanos <= 0L || !chatFormat.isHeaderCacheable()) {
+            return renderer.get();
+        }
+
+        final long now = System.nanoTime();
+        final UUID uuid = player.getUniqueId();
+
+        final Entry entry = this.entries.get(uuid);
+        if (entry != null
+                && entry.chatFormat() == chatFormat
+                && now - entry.renderedAt() < this.ttlNanos
+                && entry.displayName().equals(displayName)) {
+            this.hits.increment();
+            return entry.runs();
+        }
+
+        this.misses.increment();
+        final List<Component> runs = renderer.get();
+        this.entries.put(uuid, new Entry(chatFormat, displayName, runs, now));
+        return runs;
+    }
+
+    /**
+     * Drops the cached header of the given player.
+     */
+    public void invalidate(final @NotNull UUID uuid) {
+        this.entries.remove(uuid);
+    }
+
+    /**
+     * Drops every cached header.
+     */
+    public void clear() {
+        this.entries.clear();
+    }
+
+    public @NotNull Stats stats() {
+        return new Stats(this.hits.sum(), this.misses.sum(), this.entries.size());
+    }
+
+    private record Entry(
+            @NotNull ChatFormat chatFormat,
+            @NotNull Component displayName,
+            @NotNull List<Component> runs,
+            long renderedAt
+    ) {
+    }
+
+    /**
+     * A point-in-time view of the cache counters.
+     *
+     * @param hits   messages that reused a cached header
+     * @param misses messages whose header had to be rendered
+     * @param size   the number of cached headers
+     */
+    public record Stats(long hits, long misses, int size) {
+
+        public double hitRatio() {
+            final long total = this.hits + this.misses;
+            return total == 0L ? 0.0D : (double) this.hits / total;
+        }
+    }
+
+}
@@ -0,0 +1,349 @@
+package team.bytephoria.bytechat.chat.hover;
+
+import net.kyori.adventure.nbt.api.BinaryTagHolder;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Container;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BlockStateMeta;
+import org.bukkit.inventory.meta.BookMeta;
+import org.bukkit.inventory.meta.BundleMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.configuration.ChatConfiguration;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Builds the component of the {@code [item]} tag, keeping its hover payload
+ * within a byte budget.
+ * <p>
+ * The item tooltip is sent to every viewer of the message, and written books,
+ * filled shulker boxes or bundles can make it very large. The hover is measured
+ * by the UTF-8 length of its SNBT tag, which is what the chat packet carries.
+ * Since 1.20.5 the hover holds data components instead of a tag: they are
+ * measured by the SNBT of each component, or, when a component cannot be
+ * measured that way, by the uncompressed size of the serialized item. A hover
+ * whose size cannot be known is treated as over budget. When it is over
+ * budget a copy is sent instead, with the heavy parts summarized:
+ * <ul>
+ *     <li>book pages are removed,</li>
+ *     <li>container and bundle contents are removed,</li>
+ *     <li>lore is cut down to the configured number of lines.</li>
+ * </ul>
+ * A line describing what was hidden is added to the lore. If the copy is still
+ * over budget, only the item type, amount and name are shown.
+ * <p>
+ * Built components are cached by item, so repeating {@code [item]} with the
+ * same item neither serializes nor copies anything.
+ */
+public final class ItemHoverBuilder {
+
+    private final ChatConfiguration.Tags.ItemTag.Hover configuration;
+
+    /** Built components by item hash, least recently used first. Guarded by {@code this}. */
+    private final Map<Integer, Cached> cache;
+
+    public ItemHoverBuilder(final @NotNull ChatConfiguration.Tags.ItemTag.Hover configuration) {
+        this.configuration = configuration;
+
+        final int cacheSize = configuration.cacheSize();
+        this.cache = new LinkedHashMap<>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Integer, Cached> eldest) {
+                return this.size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the display name of the item with its tooltip as hover.
+     * Must be called on the thread that owns the item.
+     */
+    public @NotNull Component build(final @NotNull ItemStack item) {
+        final int hash = item.hashCode();
+        if (this.configuration.cacheSize() > 0) {
+            synchronized (this) {
+                final Cached cached = this.cache.get(hash);
+                if (cached != null && cached.item().equals(item)) {
+                    return cached.component();
+                }
+            }
+        }
+
+        final Component component = item.displayName()
+                .hoverEvent(HoverEvent.showItem(this.fitToBudget(item)));
+
+        if (this.configuration.cacheSize() > 0) {
+            synchronized (this) {
+                this.cache.put(hash, new Cached(item.clone(), component));
+            }
+        }
+        return component;
+    }
+
+    /**
+     * Drops every cached component.
+     */
+    public synchronized void clear() {
+        this.cache.clear();
+    }
+
+    private @NotNull HoverEvent.ShowItem fitToBudget(final @NotNull ItemStack item) {
+        final HoverEvent.ShowItem showItem = item.asHoverEvent().value();
+        final int maxBytes = this.configuration.maxBytes();
+        if (maxBytes <= 0 || payloadBytes(item, showItem) <= maxBytes) {
+            return showItem;
+        }
+
+        final ItemStack strippedItem = this.strip(item);
+        final HoverEvent.ShowItem stripped = strippedItem.asHoverEvent().value();
+        if (payloadBytes(strippedItem, stripped) <= maxBytes) {
+            return stripped;
+        }
+
+        return bare(item).asHoverEvent().value();
+    }
+
+    /**
+     * Returns the size of the data carried by an item hover, or
+     * {@link Integer#MAX_VALUE} if it cannot be measured.
+     */
+    private static int payloadBytes(final @NotNull ItemStack item, final @NotNull HoverEvent.ShowItem showItem) {
+        final BinaryTagHolder nbt = showItem.nbt();
+        if (nbt != null) {
+            return utf8Length(nbt.string());
+        }
+
+        final Map<?, ?> dataComponents = DataComponents.of(showItem);
+        if (dataComponents == null || dataComponents.isEmpty()) {
+            return 0;
+        }
+
+        final int bytes = DataComponents.snbtBytes(dataComponents);
+        return bytes >= 0 ? bytes : serializedBytes(item);
+    }
+
+    /**
+     * Returns the uncompressed size of the item as serialized by the server,
+     * or {@link Integer#MAX_VALUE} if it cannot be serialized.
+     */
+    private static int serializedBytes(final @NotNull ItemStack item) {
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(item.serializeAsBytes()))) {
+            final long bytes = input.transferTo(OutputStream.nullOutputStream());
+            return (int) Math.min(bytes, Integer.MAX_VALUE);
+        } catch (final IOException | RuntimeException exception) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Returns the UTF-8 length of the given text, without encoding it.
+     */
+    private static int utf8Length(final @NotNull String snbt) {
+        int bytes = 0;
+        for (int i = 0; i < snbt.length(); i++) {
+            final char c = snbt.charAt(i);
+            if (c < 0x80) {
+                bytes = bytes + 1;
+            } else if (c < 0x800) {
+                bytes = bytes + 2;
+            } else if (Character.isHighSurrogate(c)) {
+                // The low surrogate is counted with it.
+                bytes = bytes + 4;
+                i = i + 1;
+            } else {
+                bytes = bytes + 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns a copy of the item without its heavy parts, with a lore line
+     * summarizing what was removed.
+     */
+    private @NotNull ItemStack strip(final @NotNull ItemStack item) {
+        final ItemStack copy = item.clone();
+        final ItemMeta meta = copy.getItemMeta();
+        if (meta == null) {
+            return copy;
+        }
+
+        final List<Component> summary = new ArrayList<>(2);
+        if (meta instanceof final BookMeta bookMeta && bookMeta.hasPages()) {
+            summary.add(this.summaryLine(this.configuration.hiddenPagesText(), bookMeta.getPageCount()));
+            bookMeta.pages(List.of());
+        }
+
+        if (meta instanceof final BundleMeta bundleMeta && bundleMeta.hasItems()) {
+            summary.add(this.summaryLine(this.configuration.hiddenItemsText(), countItems(bundleMeta.getItems())));
+            bundleMeta.setItems(null);
+        }
+
+        if (meta instanceof final BlockStateMeta blockStateMeta && blockStateMeta.hasBlockState()) {
+            final BlockState blockState = blockStateMeta.getBlockState();
+            if (blockState instanceof final Container container) {
+                final int count = countItems(List.of(container.getInventory().getContents()));
+                if (count > 0) {
+                    summary.add(this.summaryLine(this.configuration.hiddenItemsText(), count));
+                    container.getInventory().clear();
+                    blockStateMeta.setBlockState(container);
+                }
+            }
+        }
+
+        final List<Component> lore = new ArrayList<>();
+        if (meta.hasLore()) {
+            final List<Component> original = meta.lore();
+            final int maxLoreLines = Math.max(this.configuration.maxLoreLines(), 0);
+            if (original != null && original.size() > maxLoreLines) {
+                lore.addAll(original.subList(0, maxLoreLines));
+                summary.add(this.summaryLine(this.configuration.hiddenLoreText(), original.size() - maxLoreLines));
+            } else if (original != null) {
+                lore.addAll(original);
+            }
+        }
+
+        lore.addAll(summary);
+        meta.lore(lore);
+        copy.setItemMeta(meta);
+        return copy;
+    }
+
+    private @NotNull Component summaryLine(final @NotNull String format, final int count) {
+        return Component.text(format.replace("{count}", Integer.toString(count)), NamedTextColor.GRAY);
+    }
+
+    /**
+     * Returns an item of the same type and amount that only keeps the custom name.
+     */
+    private static @NotNull ItemStack bare(final @NotNull ItemStack item) {
+        final ItemStack bare = new ItemStack(item.getType(), item.getAmount());
+        final ItemMeta meta = item.getItemMeta();
+        if (meta != null && meta.hasDisplayName()) {
+            final ItemMeta bareMeta = bare.getItemMeta();
+            if (bareMeta != null) {
+                bareMeta.displayName(meta.displayName());
+                bare.setItemMeta(bareMeta);
+            }
+        }
+        return bare;
+    }
+
+    private static int countItems(final @NotNull List<@Nullable ItemStack> items) {
+        int count = 0;
+        for (final ItemStack item : items) {
+            if (item != null && !item.getType().isAir()) {
+                count = count + item.getAmount();
+            }
+        }
+        return count;
+    }
+
+    private record Cached(@NotNull ItemStack item, @NotNull Component component) {
+    }
+
+    /**
+     * Reads the data components of an item hover, which Adventure added along
+     * with 1.20.5 and are looked up reflectively so the plugin still runs on
+     * older servers.
+     */
+    private static final class DataComponents {
+
+        private static final @Nullable MethodHandle DATA_COMPONENTS;
+        private static final @Nullable Class<?> TAG_SERIALIZABLE;
+        private static final @Nullable MethodHandle AS_BINARY_TAG;
+        private static final @Nullable Class<?> REMOVED;
+
+        static {
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+            MethodHandle dataComponents = null;
+            try {
+                dataComponents = lookup.findVirtual(HoverEvent.ShowItem.class, "dataComponents", MethodType.methodType(Map.class));
+            } catch (final ReflectiveOperationException ignored) {
+                // Adventure older than 4.17, where the hover always has a tag.
+            }
+
+            Class<?> tagSerializable = null;
+            MethodHandle asBinaryTag = null;
+            Class<?> removed = null;
+            try {
+                tagSerializable = Class.forName("net.kyori.adventure.text.event.DataComponentValue$TagSerializable");
+                asBinaryTag = lookup.findVirtual(tagSerializable, "asBinaryTag", MethodType.methodType(BinaryTagHolder.class));
+                removed = Class.forName("net.kyori.adventure.text.event.DataComponentValue$Removed");
+            } catch (final ReflectiveOperationException ignored) {
+                tagSerializable = null;
+                asBinaryTag = null;
+            }
+
+            DATA_COMPONENTS = dataComponents;
+            TAG_SERIALIZABLE = tagSerializable;
+            AS_BINARY_TAG = asBinaryTag;
+            REMOVED = removed;
+        }
+
+        /**
+         * Returns the data components of the hover, or {@code null} if this
+         * version of Adventure has none.
+         */
+        private static @Nullable Map<?, ?> of(final @NotNull HoverEvent.ShowItem showItem) {
+            if (DATA_COMPONENTS == null) {
+                return null;
+            }
+
+            try {
+                return (Map<?, ?>) DATA_COMPONENTS.invoke(showItem);
+            } catch (final Throwable throwable) {
+                return null;
+            }
+        }
+
+        /**
+         * Returns the UTF-8 length of the keys and SNBT values of the given
+         * components, or {@code -1} if one of them has no SNBT form.
+         */
+        private static int snbtBytes(final @NotNull Map<?, ?> dataComponents) {
+            if (TAG_SERIALIZABLE == null || AS_BINARY_TAG == null) {
+                return -1;
+            }
+
+            long bytes = 0L;
+            for (final Map.Entry<?, ?> entry : dataComponents.entrySet()) {
+                bytes = bytes + utf8Length(String.valueOf(entry.getKey()));
+
+                final Object value = entry.getValue();
+                if (REMOVED != null && REMOVED.isInstance(value)) {
+                    continue;
+                }
+
+                if (!TAG_SERIALIZABLE.isInstance(value)) {
+                    return -1;
+                }
+
+                try {
+                    bytes = bytes + utf8Length(((BinaryTagHolder) AS_BINARY_TAG.invoke(value)).string());
+                } catch (final Throwable throwable) {
+                    return -1;
+                }
+            }
+            return (int) Math.min(bytes, Integer.MAX_VALUE);
+        }
+    }
+
+}
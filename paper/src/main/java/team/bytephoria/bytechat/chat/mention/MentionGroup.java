@@ -0,0 +1,103 @@
+package team.bytephoria.bytechat.chat.mention;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.configuration.ChatConfiguration;
+import team.bytephoria.bytechat.player.AudienceIndex;
+import team.bytephoria.bytechat.serializer.component.ComponentSerializerAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A group that can be mentioned as a whole, such as {@code @everyone}.
+ *
+ * @param name       the name written after the trigger character
+ * @param type       how the audience of the group is determined
+ * @param permission the permission held by the audience, for {@link Type#PERMISSION} groups
+ * @param component  the pre-rendered mention shown in chat
+ */
+public record MentionGroup(
+        @NotNull String name,
+        @NotNull Type type,
+        @Nullable String permission,
+        @NotNull Component component
+) {
+
+    /**
+     * Creates the groups defined in the configuration. Definitions with an
+     * unknown type, or a permission group without a permission, are skipped.
+     *
+     * @param configuration     the group mention settings
+     * @param serializerAdapter the serializer used for the mention format
+     * @return the configured groups, in definition order
+     */
+    public static @NotNull List<MentionGroup> fromConfiguration(
+            final @NotNull ChatConfiguration.Mentions.Groups configuration,
+            final @NotNull ComponentSerializerAdapter serializerAdapter
+    ) {
+        if (!configuration.enabled()) {
+            return List.of();
+        }
+
+        final List<MentionGroup> groups = new ArrayList<>(configuration.definitions().size());
+        configuration.definitions().forEach((name, definition) -> {
+            final Type type = parseType(definition.type());
+            final String permission = definition.permission() == null || definition.permission().isBlank()
+                    ? null
+                    : definition.permission();
+            if (type == null || type == Type.PERMISSION && permission == null) {
+                return;
+            }
+
+            final Component component = serializerAdapter.deserialize(configuration.format().replace("{group}", name));
+            groups.add(new MentionGroup(name, type, permission, component));
+        });
+
+        return List.copyOf(groups);
+    }
+
+    private static @Nullable Type parseType(final @NotNull String typeName) {
+        try {
+            return Type.valueOf(typeName.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the players notified when the given player mentions this group.
+     */
+    public @NotNull Set<Player> audience(final @NotNull AudienceIndex audienceIndex, final @NotNull Player sender) {
+        return switch (this.type) {
+            case EVERYONE -> audienceIndex.everyone();
+            case WORLD -> audienceIndex.worldOf(sender);
+            case PERMISSION -> this.permission == null ? Set.of() : audienceIndex.withPermission(this.permission);
+        };
+    }
+
+    /**
+     * Returns {@code true} if the characters of {@code source} between {@code start}
+     * and {@code end} spell the name of this group, ignoring case.
+     */
+    public boolean matches(final @NotNull String source, final int start, final int end) {
+        return end - start == this.name.length() && source.regionMatches(true, start, this.name, 0, this.name.length());
+    }
+
+    public enum Type {
+
+        /** Every online player. */
+        EVERYONE,
+
+        /** The players in the sender's world. */
+        WORLD,
+
+        /** The players holding the group's permission. */
+        PERMISSION
+
+    }
+
+}
@@ -0,0 +1,131 @@
+package team.bytephoria.bytechat.chat.pipeline;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import team.bytephoria.bytechat.api.pipeline.ChatContext;
+import team.bytephoria.bytechat.api.pipeline.ChatStage;
+import team.bytephoria.bytechat.capability.Capability;
+import team.bytephoria.bytechat.configuration.ChatConfiguration;
+import team.bytephoria.bytechat.service.CapabilityService;
+import team.bytephoria.bytechat.service.MentionResolverService;
+
+/**
+ * Resolves player and group mentions inside the text tokens of a message.
+ * <p>
+ * Only the positions of the trigger character are visited, and a mention must
+ * start a word. When mentions without the trigger character are enabled, the
+ * words naming online players are found afterwards, and resolved when they are
+ * still plain text.
+ */
+public final class MentionStage implements ChatStage<Player, Component> {
+
+    public static final String ID = "mentions";
+    public static final int PRIORITY = 200;
+
+    private static final char WORD_SEPARATOR = ' ';
+
+    private final ChatConfiguration configuration;
+    private final CapabilityService capabilityService;
+    private final MentionResolverService mentionResolverService;
+
+    public MentionStage(
+            final @NotNull ChatConfiguration configuration,
+            final @NotNull CapabilityService capabilityService,
+            final @NotNull MentionResolverService mentionResolverService
+    ) {
+        this.configuration = configuration;
+        this.capabilityService = capabilityService;
+        this.mentionResolverService = mentionResolverService;
+    }
+
+    @Override
+    public @NotNull String id() {
+        return ID;
+    }
+
+    @Override
+    public int priority() {
+        return PRIORITY;
+    }
+
+    @Override
+    public void process(final @NotNull ChatContext<Player, Component> context) {
+        if (context.size() == 0
+                || !this.configuration.chat().mentions().enabled()
+                || !this.capabilityService.snapshot(context.sender()).has(Capability.FORMAT_MENTION)) {
+            return;
+        }
+
+        this.resolveTriggerMentions(context);
+        if (this.mentionResolverService.mentionsWithoutTrigger()) {
+            this.resolveNameMentions(context);
+        }
+    }
+
+    private void resolveTriggerMentions(final @NotNull ChatContext<Player, Component> context) {
+        final String message = context.message();
+        final char triggerChar = this.mentionResolverService.triggerChar();
+
+        int next = message.indexOf(triggerChar);
+        for (int i = 0; i < context.size() && next != -1; i++) {
+            if (context.isResolved(i)) {
+                continue;
+            }
+
+            final int tokenEnd = context.end(i);
+            if (next < context.start(i)) {
+                next = message.indexOf(triggerChar, context.start(i));
+            }
+
+            while (next != -1 && next < tokenEnd) {
+                if (next == 0 || message.charAt(next - 1) == WORD_SEPARATOR) {
+                    int wordEnd = message.indexOf(WORD_SEPARATOR, next);
+                    if (wordEnd == -1 || wordEnd > tokenEnd) {
+                        wordEnd = tokenEnd;
+                    }
+
+                    final Component mentionComponent = this.mentionResolverService.resolveMention(context.sender(), message, next, wordEnd);
+                    if (mentionComponent != null) {
+                        // The text after the mention, if any, is the next token.
+                        i = context.resolve(i, next, wordEnd, mentionComponent);
+                        next = message.indexOf(triggerChar, wordEnd);
+                        break;
+                    }
+                }
+
+                next = message.indexOf(triggerChar, next + 1);
+            }
+        }
+    }
+
+    private void resolveNameMentions(final @NotNull ChatContext<Player, Component> context) {
+        final String message = context.message();
+
+        // Start and end pairs of the words naming an online player, in order.
+        final int[] names = this.mentionResolverService.findNameMentions(message);
+
+        int i = 0;
+        for (int n = 0; n < names.length; n += 2) {
+            final int nameStart = names[n];
+            final int nameEnd = names[n + 1];
+            while (i < context.size() && context.end(i) <= nameStart) {
+                i = i + 1;
+            }
+
+            if (i == context.size()) {
+                return;
+            }
+
+            if (context.isResolved(i) || nameStart < context.start(i) || nameEnd > context.end(i)) {
+                continue;
+            }
+
+            final Component mentionComponent = this.mentionResolverService.resolveNameMention(context.sender(), message, nameStart, nameEnd);
+            if (mentionComponent != null) {
+                i = context.resolve(i, nameStart, nameEnd, mentionComponent);
+            }
+        }
+    }
+
+}
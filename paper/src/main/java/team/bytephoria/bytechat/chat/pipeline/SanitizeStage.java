@@ -0,0 +1,87 @@
+package team.bytephoria.bytechat.chat.pipeline;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import team.bytephoria.bytechat.api.pipeline.ChatContext;
+import team.bytephoria.bytechat.api.pipeline.ChatStage;
+import team.bytephoria.bytechat.capability.Capability;
+import team.bytephoria.bytechat.chat.sanitizer.PlayerInputSanitizer;
+import team.bytephoria.bytechat.configuration.ChatConfiguration;
+import team.bytephoria.bytechat.service.CapabilityService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns every text token left by the previous stages into a component through
+ * the {@link PlayerInputSanitizer}.
+ * <p>
+ * Tag and mention components resolved before this stage (which may carry click
+ * events for inventory previews) are never stripped, while all interactive
+ * events injected by the player are removed.
+ * <p>
+ * The text tokens are sanitized together as one span, so formatting the player
+ * opens before a mention or tag still applies to the text after it. The resolved
+ * components themselves keep their own style.
+ */
+public final class SanitizeStage implements ChatStage<Player, Component> {
+
+    public static final String ID = "sanitize";
+    public static final int PRIORITY = 100;
+
+    private final ChatConfiguration configuration;
+    private final CapabilityService capabilityService;
+    private final PlayerInputSanitizer playerInputSanitizer;
+
+    public SanitizeStage(
+            final @NotNull ChatConfiguration configuration,
+            final @NotNull CapabilityService capabilityService,
+            final @NotNull PlayerInputSanitizer playerInputSanitizer
+    ) {
+        this.configuration = configuration;
+        this.capabilityService = capabilityService;
+        this.playerInputSanitizer = playerInputSanitizer;
+    }
+
+    @Override
+    public @NotNull String id() {
+        return ID;
+    }
+
+    @Override
+    public int priority() {
+        return PRIORITY;
+    }
+
+    @Override
+    public void process(final @NotNull ChatContext<Player, Component> context) {
+        if (context.size() == 0) {
+            return;
+        }
+
+        final boolean allowFormatting = this.configuration.chat().textFormatting()
+                && this.capabilityService.snapshot(context.sender()).has(Capability.FORMAT_COLOR);
+
+        final int[] indexes = new int[context.size()];
+        final List<String> segments = new ArrayList<>(context.size());
+        for (int i = 0; i < context.size(); i++) {
+            if (!context.isResolved(i)) {
+                indexes[segments.size()] = i;
+                segments.add(context.text(i));
+            }
+        }
+
+        if (segments.isEmpty()) {
+            return;
+        }
+
+        // Resolving a whole token never splits it, so the indexes stay valid.
+        final List<Component> components = this.playerInputSanitizer.sanitize(segments, allowFormatting);
+        for (int i = 0; i < components.size(); i++) {
+            final int index = indexes[i];
+            context.resolve(index, context.start(index), context.end(index), components.get(i));
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+package team.bytephoria.bytechat.chat.pipeline;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.api.pipeline.ChatContext;
+import team.bytephoria.bytechat.api.pipeline.ChatStage;
+import team.bytephoria.bytechat.capability.Capability;
+import team.bytephoria.bytechat.configuration.ChatConfiguration;
+import team.bytephoria.bytechat.service.CapabilityService;
+import team.bytephoria.bytechat.service.EntitySnapshotService;
+import team.bytephoria.bytechat.service.TagResolverService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Resolves inline tags such as {@code [item]} inside the text tokens of a message.
+ * <p>
+ * Only the positions of {@code [} are visited, and a message containing none is
+ * left untouched without any allocation. A tag never spans two tokens, and the
+ * closest {@code ]} is cached so runs of unclosed brackets stay linear.
+ * <p>
+ * The tags are found and prepared first, and resolved once the reads they need
+ * from the player ran as a single batch, so a message with several tags waits
+ * for the thread owning the player only once.
+ */
+public final class TagStage implements ChatStage<Player, Component> {
+
+    public static final String ID = "tags";
+    public static final int PRIORITY = 300;
+
+    private static final char OPEN_BRACKET = '[';
+    private static final char CLOSE_BRACKET = ']';
+
+    private final ChatConfiguration configuration;
+    private final CapabilityService capabilityService;
+    private final TagResolverService tagResolverService;
+
+    public TagStage(
+            final @NotNull ChatConfiguration configuration,
+            final @NotNull CapabilityService capabilityService,
+            final @NotNull TagResolverService tagResolverService
+    ) {
+        this.configuration = configuration;
+        this.capabilityService = capabilityService;
+        this.tagResolverService = tagResolverService;
+    }
+
+    @Override
+    public @NotNull String id() {
+        return ID;
+    }
+
+    @Override
+    public int priority() {
+        return PRIORITY;
+    }
+
+    @Override
+    public void process(final @NotNull ChatContext<Player, Component> context) {
+        final String message = context.message();
+        int next = message.indexOf(OPEN_BRACKET);
+        if (next == -1) {
+            return;
+        }
+
+        final int maxTags = this.tagResolverService.maxTagsPerMessage();
+        final Player player = context.sender();
+        if (maxTags == 0
+                || !this.configuration.chat().tags().enabled()
+                || !this.capabilityService.snapshot(player).has(Capability.FORMAT_TAG)) {
+            return;
+        }
+
+        final EntitySnapshotService.Batch batch = this.tagResolverService.batch(player);
+        final List<PendingTag> pendingTags = new ArrayList<>(4);
+
+        int closeIndex = 0;
+        scan:
+        for (int i = 0; i < context.size() && next != -1; i++) {
+            if (context.isResolved(i)) {
+                continue;
+            }
+
+            final int tokenEnd = context.end(i);
+            if (next < context.start(i)) {
+                next = message.indexOf(OPEN_BRACKET, context.start(i));
+            }
+
+            while (next != -1 && next < tokenEnd) {
+                if (closeIndex <= next) {
+                    closeIndex = message.indexOf(CLOSE_BRACKET, next + 1);
+                }
+
+                // No bracket is closed anywhere past this point.
+                if (closeIndex == -1) {
+                    break scan;
+                }
+
+                // No bracket of this token is closed inside it.
+                if (closeIndex >= tokenEnd) {
+                    break;
+                }
+
+                final Supplier<Component> tagComponent = this.tagResolverService.prepareTag(player, message, next + 1, closeIndex, batch);
+                if (tagComponent == null) {
+                    next = message.indexOf(OPEN_BRACKET, next + 1);
+                    continue;
+                }
+
+                pendingTags.add(new PendingTag(next, closeIndex + 1, tagComponent));
+                next = message.indexOf(OPEN_BRACKET, closeIndex + 1);
+
+                // Stop parsing tags once the per-message limit is reached (-1 means unlimited).
+                if (maxTags >= 0 && pendingTags.size() >= maxTags) {
+                    break scan;
+                }
+            }
+        }
+
+        if (pendingTags.isEmpty()) {
+            return;
+        }
+
+        // Read the player's items for every tag at once, then resolve the tags in order.
+        batch.run();
+
+        int index = 0;
+        for (final PendingTag pendingTag : pendingTags) {
+            while (context.end(index) <= pendingTag.start()) {
+                index = index + 1;
+            }
+
+            final Component tagComponent = pendingTag.component().get();
+            if (tagComponent != null) {
+                index = context.resolve(index, pendingTag.start(), pendingTag.end(), tagComponent);
+            }
+        }
+    }
+
+    /**
+     * A tag found in the message, completed once the reads of the message ran.
+     *
+     * @param start     the index of the opening bracket
+     * @param end       the index after the closing bracket
+     * @param component supplies the tag component, or {@code null} to leave the text
+     */
+    private record PendingTag(int start, int end, @NotNull Supplier<@Nullable Component> component) {
+    }
+}
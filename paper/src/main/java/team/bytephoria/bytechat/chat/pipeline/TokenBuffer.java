@@ -0,0 +1,205 @@
+package team.bytephoria.bytechat.chat.pipeline;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.api.pipeline.ChatContext;
+
+import java.util.Arrays;
+
+/**
+ * The token buffer of a single chat message, shared by every stage of the
+ * {@link team.bytephoria.bytechat.registry.PaperChatPipeline}.
+ * <p>
+ * Tokens are held in parallel arrays of start and end positions into the raw
+ * message, next to the component each resolved token points to. Text tokens
+ * have no component. The buffer is not thread-safe: it belongs to the chat
+ * thread rendering the message.
+ */
+public final class TokenBuffer implements ChatContext<Player, Component> {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final Player sender;
+    private final String message;
+
+    private int[] starts;
+    private int[] ends;
+    private Component[] components;
+    private int size;
+
+    public TokenBuffer(final @NotNull Player sender, final @NotNull String message) {
+        this.sender = sender;
+        this.message = message;
+        this.starts = new int[INITIAL_CAPACITY];
+        this.ends = new int[INITIAL_CAPACITY];
+        this.components = new Component[INITIAL_CAPACITY];
+
+        if (!message.isEmpty()) {
+            this.ends[0] = message.length();
+            this.size = 1;
+        }
+    }
+
+    @Override
+    public @NotNull Player sender() {
+        return this.sender;
+    }
+
+    @Override
+    public @NotNull String message() {
+        return this.message;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public int start(final int index) {
+        return this.starts[this.checkIndex(index)];
+    }
+
+    @Override
+    public int end(final int index) {
+        return this.ends[this.checkIndex(index)];
+    }
+
+    @Override
+    public boolean isResolved(final int index) {
+        return this.components[this.checkIndex(index)] != null;
+    }
+
+    @Override
+    public @Nullable Component component(final int index) {
+        return this.components[this.checkIndex(index)];
+    }
+
+    @Override
+    public int resolve(final int index, final int start, final int end, final @NotNull Component component) {
+        final int tokenStart = this.start(index);
+        final int tokenEnd = this.ends[index];
+        if (this.components[index] != null) {
+            throw new IllegalArgumentException("Token " + index + " is already resolved");
+        }
+
+        if (start < tokenStart || end > tokenEnd || start >= end) {
+            throw new IllegalArgumentException(
+                    "Range [" + start + ", " + end + ") is not inside token [" + tokenStart + ", " + tokenEnd + ")"
+            );
+        }
+
+        final boolean before = start > tokenStart;
+        final boolean after = end < tokenEnd;
+        final int inserted = (before ? 1 : 0) + (after ? 1 : 0);
+        if (inserted > 0) {
+            this.ensureCapacity(this.size + inserted);
+            final int tail = this.size - index - 1;
+            System.arraycopy(this.starts, index + 1, this.starts, index + 1 + inserted, tail);
+            System.arraycopy(this.ends, index + 1, this.ends, index + 1 + inserted, tail);
+            System.arraycopy(this.components, index + 1, this.components, index + 1 + inserted, tail);
+            this.size = this.size + inserted;
+        }
+
+        int cursor = index;
+        if (before) {
+            this.set(cursor++, tokenStart, start, null);
+        }
+
+        final int resolved = cursor;
+        this.set(cursor++, start, end, component);
+
+        if (after) {
+            this.set(cursor, end, tokenEnd, null);
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Copies the current tokens, so the changes made after this call can be
+     * undone with {@link #restore(Snapshot)}.
+     *
+     * @return the copy of the tokens
+     */
+    public @NotNull Snapshot snapshot() {
+        return new Snapshot(
+                Arrays.copyOf(this.starts, this.size),
+                Arrays.copyOf(this.ends, this.size),
+                Arrays.copyOf(this.components, this.size)
+        );
+    }
+
+    /**
+     * Puts the tokens back as they were when the snapshot was taken.
+     *
+     * @param snapshot a snapshot of this buffer
+     */
+    public void restore(final @NotNull Snapshot snapshot) {
+        final int size = snapshot.starts().length;
+        this.ensureCapacity(size);
+        System.arraycopy(snapshot.starts(), 0, this.starts, 0, size);
+        System.arraycopy(snapshot.ends(), 0, this.ends, 0, size);
+        System.arraycopy(snapshot.components(), 0, this.components, 0, size);
+        Arrays.fill(this.components, size, Math.max(size, this.size), null);
+        this.size = size;
+    }
+
+    /**
+     * Assembles the tokens into a single component. Tokens that were left as
+     * text by every stage are appended as literal text, never parsed.
+     *
+     * @return the assembled message
+     */
+    public @NotNull Component toComponent() {
+        if (this.size == 0) {
+            return Component.empty();
+        }
+
+        if (this.size == 1 && this.components[0] != null) {
+            return this.components[0];
+        }
+
+        final TextComponent.Builder builder = Component.text();
+        for (int i = 0; i < this.size; i++) {
+            final Component component = this.components[i];
+            builder.append(component != null ? component : Component.text(this.text(i)));
+        }
+
+        return builder.build();
+    }
+
+    private void set(final int index, final int start, final int end, final @Nullable Component component) {
+        this.starts[index] = start;
+        this.ends[index] = end;
+        this.components[index] = component;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity <= this.starts.length) {
+            return;
+        }
+
+        final int newCapacity = Math.max(capacity, this.starts.length * 2);
+        this.starts = Arrays.copyOf(this.starts, newCapacity);
+        this.ends = Arrays.copyOf(this.ends, newCapacity);
+        this.components = Arrays.copyOf(this.components, newCapacity);
+    }
+
+    private int checkIndex(final int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Token " + index + " out of bounds for " + this.size + " tokens");
+        }
+        return index;
+    }
+
+    /**
+     * The tokens of a buffer at one point in time.
+     */
+    public record Snapshot(int @NotNull [] starts, int @NotNull [] ends, @Nullable Component @NotNull [] components) {
+    }
+
+}
@@ -0,0 +1,160 @@
+package team.bytephoria.bytechat.chat.sanitizer;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.serializer.component.ComponentSerializerAdapter;
+import team.bytephoria.bytechat.util.ComponentUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns segments of player-written text into safe components.
+ * <p>
+ * Each segment is parsed exactly once with the player input serializer and the
+ * resulting component tree is cleaned in place:
+ * <ul>
+ *     <li>Interactive events (click, hover, insertion) are always removed, even
+ *         if the configured serializer is able to produce them.</li>
+ *     <li>If formatting is not allowed, the tree is flattened into its plain
+ *         text, dropping every color and decoration.</li>
+ * </ul>
+ * The sanitized component is used as-is by the renderer, so the text is never
+ * serialized back into markup and parsed a second time.
+ * <p>
+ * The text of a message is cut into several segments by the mentions and tags
+ * resolved before sanitizing. {@link #sanitize(List, boolean)} parses those
+ * segments as one span, so formatting opened in one segment carries over the
+ * resolved components in between and closes where the player closed it.
+ */
+public final class PlayerInputSanitizer {
+
+    /**
+     * Joins the segments of a span while it is parsed. The client never sends
+     * control characters in chat, so it cannot appear in the player's text.
+     */
+    private static final char SEGMENT_SEPARATOR = '\u0000';
+
+    private final ComponentSerializerAdapter playerInputSerializerAdapter;
+
+    public PlayerInputSanitizer(final @NotNull ComponentSerializerAdapter playerInputSerializerAdapter) {
+        this.playerInputSerializerAdapter = playerInputSerializerAdapter;
+    }
+
+    /**
+     * Parses and sanitizes a segment of player input.
+     *
+     * @param input           the raw text segment
+     * @param allowFormatting whether colors and decorations are kept
+     * @return the sanitized component
+     */
+    public @NotNull Component sanitize(final @NotNull String input, final boolean allowFormatting) {
+        final Component parsed = this.playerInputSerializerAdapter.deserialize(input);
+        if (!allowFormatting) {
+            return Component.text(PlainTextComponentSerializer.plainText().serialize(parsed));
+        }
+
+        return ComponentUtil.stripInteractivity(parsed);
+    }
+
+    /**
+     * Parses and sanitizes consecutive segments of player input as a single span,
+     * returning one component per segment.
+     * <p>
+     * The segments are joined and parsed once, and the result is cut back at the
+     * segment boundaries. Every piece keeps the style it inherited in the parsed
+     * tree, so {@code <red>hi } and {@code  there</red>} are both red and the
+     * closing tag is consumed rather than shown. If the span cannot be cut back
+     * cleanly, for example because a boundary fell inside a tag argument, each
+     * segment is parsed on its own instead.
+     *
+     * @param segments        the raw text segments, in message order
+     * @param allowFormatting whether colors and decorations are kept
+     * @return the sanitized components, parallel to {@code segments}
+     */
+    public @NotNull List<Component> sanitize(final @NotNull List<String> segments, final boolean allowFormatting) {
+        if (segments.size() == 1) {
+            return List.of(this.sanitize(segments.get(0), allowFormatting));
+        }
+
+        final List<Component> span = this.sanitizeSpan(segments, allowFormatting);
+        if (span != null) {
+            return span;
+        }
+
+        final List<Component> components = new ArrayList<>(segments.size());
+        for (final String segment : segments) {
+            components.add(this.sanitize(segment, allowFormatting));
+        }
+        return components;
+    }
+
+    private @Nullable List<Component> sanitizeSpan(final @NotNull List<String> segments, final boolean allowFormatting) {
+        final StringBuilder joined = new StringBuilder();
+        for (final String segment : segments) {
+            if (segment.indexOf(SEGMENT_SEPARATOR) != -1) {
+                return null;
+            }
+            if (!joined.isEmpty()) {
+                joined.append(SEGMENT_SEPARATOR);
+            }
+            joined.append(segment);
+        }
+
+        final List<List<Component>> pieces = new ArrayList<>(segments.size());
+        pieces.add(new ArrayList<>());
+        split(this.sanitize(joined.toString(), allowFormatting), Style.empty(), pieces);
+        if (pieces.size() != segments.size()) {
+            return null;
+        }
+
+        final List<Component> components = new ArrayList<>(pieces.size());
+        for (final List<Component> piece : pieces) {
+            components.add(switch (piece.size()) {
+                case 0 -> Component.empty();
+                case 1 -> piece.get(0);
+                default -> Component.text().append(piece).build();
+            });
+        }
+        return components;
+    }
+
+    /**
+     * Flattens the component tree into the pieces between the separators, giving
+     * every leaf the style it inherits from its parents. A new piece is started
+     * at each separator found in text content.
+     */
+    private static void split(
+            final @NotNull Component component,
+            final @NotNull Style inherited,
+            final @NotNull List<List<Component>> pieces
+    ) {
+        final Style style = component.style().merge(inherited, Style.Merge.Strategy.IF_ABSENT_ON_TARGET);
+        if (component instanceof TextComponent text) {
+            final String content = text.content();
+            int from = 0;
+            for (int separator = content.indexOf(SEGMENT_SEPARATOR); separator != -1; separator = content.indexOf(SEGMENT_SEPARATOR, from)) {
+                if (separator > from) {
+                    pieces.get(pieces.size() - 1).add(Component.text(content.substring(from, separator), style));
+                }
+                pieces.add(new ArrayList<>());
+                from = separator + 1;
+            }
+
+            if (from < content.length()) {
+                pieces.get(pieces.size() - 1).add(Component.text(content.substring(from), style));
+            }
+        } else {
+            pieces.get(pieces.size() - 1).add(component.children(List.of()).style(style));
+        }
+
+        for (final Component child : component.children()) {
+            split(child, style, pieces);
+        }
+    }
+
+}
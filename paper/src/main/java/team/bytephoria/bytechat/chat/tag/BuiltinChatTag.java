@@ -0,0 +1,74 @@
+package team.bytephoria.bytechat.chat.tag;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.api.tag.ChatTag;
+import team.bytephoria.bytechat.service.EntitySnapshotService;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A chat tag shipped with ByteChat.
+ * <p>
+ * Built-in tags may need to read the sender's items on the thread that owns the
+ * sender. They are therefore prepared first, adding their reads to the batch of
+ * the message, and completed once every tag of the message was prepared and the
+ * batch ran.
+ *
+ * @param id                    the tag id
+ * @param priority              the priority over other tags sharing an alias
+ * @param aliases               the names the tag is written with
+ * @param entitySnapshotService runs the reads of a tag resolved on its own
+ * @param preparer              prepares the tag for a sender
+ */
+public record BuiltinChatTag(
+        @NotNull String id,
+        int priority,
+        @NotNull List<String> aliases,
+        @NotNull EntitySnapshotService entitySnapshotService,
+        @NotNull Preparer preparer
+) implements ChatTag<Player, Component> {
+
+    /**
+     * Prepares the tag, adding the reads it needs to the given batch.
+     *
+     * @param sender the player who sent the message
+     * @param batch  the reads of the message
+     * @return supplies the tag component once the batch ran, or {@code null}
+     *         if the sender may not use the tag
+     */
+    public @Nullable Supplier<@Nullable Component> prepare(
+            final @NotNull Player sender,
+            final EntitySnapshotService.@NotNull Batch batch
+    ) {
+        return this.preparer.prepare(sender, batch);
+    }
+
+    @Override
+    public @Nullable Component resolve(final @NotNull Player sender) {
+        final EntitySnapshotService.Batch batch = this.entitySnapshotService.batch(sender);
+        final Supplier<Component> component = this.prepare(sender, batch);
+        if (component == null) {
+            return null;
+        }
+
+        batch.run();
+        return component.get();
+    }
+
+    /**
+     * Prepares a built-in tag.
+     */
+    @FunctionalInterface
+    public interface Preparer {
+
+        @Nullable Supplier<@Nullable Component> prepare(
+                final @NotNull Player sender,
+                final EntitySnapshotService.@NotNull Batch batch
+        );
+    }
+
+}
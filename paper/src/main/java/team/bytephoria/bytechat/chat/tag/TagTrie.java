@@ -0,0 +1,146 @@
+package team.bytephoria.bytechat.chat.tag;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An immutable, case-insensitive trie of tag aliases.
+ * <p>
+ * Matching walks the characters of the candidate inside the original message,
+ * one node per character, so resolving a {@code [...]} candidate neither
+ * allocates a substring nor depends on the number of registered tags.
+ *
+ * @param <T> the type of the values stored at each alias
+ */
+public final class TagTrie<T> {
+
+    private static final TagTrie<?> EMPTY = new TagTrie<>(new Node<>(new char[0], emptyChildren(), null), 0);
+
+    private final Node<T> root;
+    private final int maxLength;
+
+    private TagTrie(final @NotNull Node<T> root, final int maxLength) {
+        this.root = root;
+        this.maxLength = maxLength;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> @NotNull TagTrie<T> empty() {
+        return (TagTrie<T>) EMPTY;
+    }
+
+    /**
+     * Builds a trie of the given aliases. When an alias is given more than once,
+     * the first occurrence wins, so callers pass them in order of preference.
+     */
+    public static <T> @NotNull TagTrie<T> build(final @NotNull Collection<Alias<T>> aliases) {
+        final List<Alias<T>> folded = new ArrayList<>(aliases.size());
+        int maxLength = 0;
+        for (final Alias<T> alias : aliases) {
+            final String name = alias.name().toLowerCase(Locale.ROOT);
+            if (name.isEmpty()) {
+                continue;
+            }
+
+            folded.add(new Alias<>(name, alias.value()));
+            maxLength = Math.max(maxLength, name.length());
+        }
+
+        if (folded.isEmpty()) {
+            return empty();
+        }
+
+        // A stable sort keeps duplicates in order of preference.
+        folded.sort(Comparator.comparing(Alias::name));
+        return new TagTrie<>(buildNode(folded, 0, 0, folded.size()), maxLength);
+    }
+
+    /**
+     * Returns the length of the longest alias, so longer candidates can be
+     * rejected without walking the trie.
+     */
+    public int maxLength() {
+        return this.maxLength;
+    }
+
+    /**
+     * Finds the value whose alias equals, ignoring case, the characters of
+     * {@code source} between {@code start} (inclusive) and {@code end} (exclusive).
+     *
+     * @return the matching value, or {@code null} if no alias matches
+     */
+    public @Nullable T match(final @NotNull CharSequence source, final int start, final int end) {
+        if (end - start > this.maxLength) {
+            return null;
+        }
+
+        Node<T> node = this.root;
+        for (int i = start; i < end && node != null; i++) {
+            node = node.child(Character.toLowerCase(source.charAt(i)));
+        }
+        return node == null ? null : node.value;
+    }
+
+    private static <T> @NotNull Node<T> buildNode(final @NotNull List<Alias<T>> aliases, final int depth, final int from, final int to) {
+        T value = null;
+        int index = from;
+        while (index < to && aliases.get(index).name().length() == depth) {
+            if (value == null) {
+                value = aliases.get(index).value();
+            }
+            index = index + 1;
+        }
+
+        final StringBuilder keys = new StringBuilder();
+        final List<Node<T>> children = new ArrayList<>();
+        while (index < to) {
+            final char key = aliases.get(index).name().charAt(depth);
+            final int childFrom = index;
+            while (index < to && aliases.get(index).name().charAt(depth) == key) {
+                index = index + 1;
+            }
+            keys.append(key);
+            children.add(buildNode(aliases, depth + 1, childFrom, index));
+        }
+
+        return new Node<>(keys.toString().toCharArray(), children.toArray(emptyChildren()), value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> @NotNull Node<T> @NotNull [] emptyChildren() {
+        return (Node<T>[]) new Node<?>[0];
+    }
+
+    /**
+     * An alias and the value it resolves to.
+     */
+    public record Alias<T>(@NotNull String name, @NotNull T value) {
+    }
+
+    private static final class Node<T> {
+
+        /** The next characters, sorted, parallel to {@link #children}. */
+        private final char[] keys;
+        private final Node<T>[] children;
+        private final @Nullable T value;
+
+        private Node(final char @NotNull [] keys, final @NotNull Node<T> @NotNull [] children, final @Nullable T value) {
+            this.keys = keys;
+            this.children = children;
+            this.value = value;
+        }
+
+        private @Nullable Node<T> child(final char key) {
+            final int index = Arrays.binarySearch(this.keys, key);
+            return index < 0 ? null : this.children[index];
+        }
+    }
+
+}
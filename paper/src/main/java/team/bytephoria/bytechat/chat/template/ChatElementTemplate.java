@@ -0,0 +1,203 @@
+package team.bytephoria.bytechat.chat.template;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.event.HoverEvent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.chat.element.ChatElement;
+import team.bytephoria.bytechat.serializer.component.ComponentSerializerAdapter;
+import team.bytephoria.bytechat.util.ComponentUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The compiled form of a {@link ChatElement}, built once by the format loader.
+ * <p>
+ * The element text and every hover line are held as {@link ComponentTemplate}s,
+ * and the click value as a {@link StringTemplate}. Parts without dynamic slots
+ * are rendered during compilation, and an element without any slot at all is
+ * reduced to a single constant {@link Component} that is reused for every message.
+ */
+public final class ChatElementTemplate {
+
+    private final ChatElement element;
+
+    private final ComponentTemplate text;
+    private final @Nullable List<ComponentTemplate> hoverLines;
+    private final @Nullable ClickEvent.Action clickAction;
+    private final @Nullable StringTemplate clickValue;
+
+    /** Pre-rendered hover event, present when every hover line is static. */
+    private final @Nullable HoverEvent<Component> staticHover;
+
+    /** Pre-rendered click event, present when the click value is static. */
+    private final @Nullable ClickEvent staticClick;
+
+    /** The fully rendered element, present when the element has no slots at all. */
+    private final @Nullable Component staticComponent;
+
+    /** Whether any part of the element contains a {@code {message}} slot. */
+    private final boolean referencesMessage;
+
+    private ChatElementTemplate(
+            final @NotNull ChatElement element,
+            final @NotNull ComponentTemplate text,
+            final @Nullable List<ComponentTemplate> hoverLines,
+            final @Nullable ClickEvent.Action clickAction,
+            final @Nullable StringTemplate clickValue
+    ) {
+        this.element = element;
+        this.text = text;
+        this.hoverLines = hoverLines;
+        this.clickAction = clickAction;
+        this.clickValue = clickValue;
+
+        final boolean staticHoverLines = hoverLines == null || hoverLines.stream().allMatch(ComponentTemplate::isStatic);
+        this.staticHover = staticHoverLines ? this.createHoverEvent(null) : null;
+
+        final boolean staticClickValue = clickValue == null || clickValue.isStatic();
+        this.staticClick = staticClickValue ? this.createClickEvent(null) : null;
+
+        this.staticComponent = text.isStatic() && staticHoverLines && staticClickValue
+                ? this.decorate(text.render(TemplateSlot::token), this.staticHover, this.staticClick)
+                : null;
+
+        this.referencesMessage = hasMessageSlot(text.slots())
+                || hoverLines != null && hoverLines.stream().anyMatch(line -> hasMessageSlot(line.slots()))
+                || clickValue != null && hasMessageSlot(clickValue.slots());
+    }
+
+    /**
+     * Compiles the given element.
+     *
+     * @param element        the element as read from the configuration
+     * @param adapter        the serializer used for the format
+     * @param placeholders   the table PlaceholderAPI tokens are registered in, or
+     *                       {@code null} if they should not be treated as slots
+     * @return the compiled element
+     */
+    public static @NotNull ChatElementTemplate compile(
+            final @NotNull ChatElement element,
+            final @NotNull ComponentSerializerAdapter adapter,
+            final PlaceholderTable.@Nullable Builder placeholders
+    ) {
+        final ComponentTemplate text = ComponentTemplate.compile(element.text(), adapter, placeholders);
+
+        List<ComponentTemplate> hoverLines = null;
+        final List<String> rawHoverLines = element.hoverLines();
+        if (rawHoverLines != null && !rawHoverLines.isEmpty()) {
+            hoverLines = new ArrayList<>(rawHoverLines.size());
+            for (final String line : rawHoverLines) {
+                hoverLines.add(ComponentTemplate.compile(line == null ? "" : line, adapter, placeholders));
+            }
+            hoverLines = List.copyOf(hoverLines);
+        }
+
+        final ClickEvent.Action clickAction = element.clickAction();
+        final String rawClickValue = element.clickValue();
+        final StringTemplate clickValue = clickAction != null && rawClickValue != null && !rawClickValue.isEmpty()
+                ? StringTemplate.compile(rawClickValue, placeholders)
+                : null;
+
+        return new ChatElementTemplate(element, text, hoverLines, clickValue == null ? null : clickAction, clickValue);
+    }
+
+    public @NotNull ChatElement element() {
+        return this.element;
+    }
+
+    /**
+     * Returns {@code true} if this element represents the player's message body.
+     *
+     * @see ChatElement#isMessageElement()
+     */
+    public boolean isMessageElement() {
+        return this.element.isMessageElement();
+    }
+
+    /**
+     * Returns {@code true} if this element renders to the same component for every message.
+     */
+    public boolean isStatic() {
+        return this.staticComponent != null;
+    }
+
+    /**
+     * Returns {@code true} if the text, hover or click of this element contains a
+     * {@code {message}} slot, meaning its rendered form differs for every message.
+     */
+    public boolean referencesMessage() {
+        return this.referencesMessage;
+    }
+
+    /**
+     * Renders this element for the current message.
+     *
+     * @param resolver the slot resolver for the current message
+     * @return the rendered component
+     */
+    public @NotNull Component render(final @NotNull SlotResolver resolver) {
+        if (this.staticComponent != null) {
+            return this.staticComponent;
+        }
+
+        final HoverEvent<Component> hover = this.staticHover != null ? this.staticHover : this.createHoverEvent(resolver);
+        final ClickEvent click = this.staticClick != null ? this.staticClick : this.createClickEvent(resolver);
+        return this.decorate(this.text.render(resolver), hover, click);
+    }
+
+    private @NotNull Component decorate(
+            final @NotNull Component component,
+            final @Nullable HoverEvent<Component> hover,
+            final @Nullable ClickEvent click
+    ) {
+        Component result = component;
+        if (hover != null) {
+            result = result.hoverEvent(hover);
+        }
+
+        if (click != null) {
+            result = result.clickEvent(click);
+        }
+
+        return result;
+    }
+
+    /**
+     * Renders the hover lines. A {@code null} resolver is only valid when every
+     * line is static, which is how the constant hover event is built at load time.
+     */
+    private @Nullable HoverEvent<Component> createHoverEvent(final @Nullable SlotResolver resolver) {
+        if (this.hoverLines == null) {
+            return null;
+        }
+
+        final List<Component> lines = new ArrayList<>(this.hoverLines.size());
+        for (final ComponentTemplate line : this.hoverLines) {
+            lines.add(resolver == null ? line.render(TemplateSlot::token) : line.render(resolver));
+        }
+
+        return HoverEvent.showText(ComponentUtil.joinLines(lines));
+    }
+
+    private @Nullable ClickEvent createClickEvent(final @Nullable SlotResolver resolver) {
+        if (this.clickAction == null || this.clickValue == null) {
+            return null;
+        }
+
+        final String value = resolver == null ? this.clickValue.source() : this.clickValue.render(resolver);
+        return ClickEvent.clickEvent(this.clickAction, value);
+    }
+
+    private static boolean hasMessageSlot(final @NotNull List<TemplateSlot> slots) {
+        for (final TemplateSlot slot : slots) {
+            if (slot.type() == SlotType.MESSAGE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
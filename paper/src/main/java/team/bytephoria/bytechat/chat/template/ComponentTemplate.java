@@ -0,0 +1,262 @@
+package team.bytephoria.bytechat.chat.template;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.serializer.component.ComponentSerializerAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A format string deserialized once at load time.
+ * <p>
+ * Each dynamic slot in the source is replaced by a private-use marker before the
+ * string is handed to the serializer. The resulting {@link Component} tree keeps
+ * all static styling, and rendering only has to swap the markers in the affected
+ * text nodes for the resolved values.
+ * <p>
+ * Two situations fall back to resolving the slots into the source string and
+ * deserializing it, exactly as the format system did before templates existed:
+ * <ul>
+ *     <li>The markers did not survive deserialization intact, for example when
+ *         a slot sits inside a gradient or a tag argument.</li>
+ *     <li>A resolved PlaceholderAPI value contains markup characters, such as a
+ *         prefix carrying its own colors, which must be parsed in context.</li>
+ * </ul>
+ * The {@code {player}} and {@code {message}} slots always hold literal text. They
+ * are written into text nodes as-is, and escaped for the serializer when the
+ * fallback path is taken, so player input can never be parsed as format markup.
+ */
+public final class ComponentTemplate {
+
+    private static final char SLOT_MARKER = '\uE000';
+    private static final char SLOT_INDEX_BASE = '\uE100';
+    private static final int MAX_SLOTS = 256;
+
+    private final StringTemplate source;
+    private final ComponentSerializerAdapter adapter;
+
+    /** The pre-deserialized tree, or {@code null} if this template always falls back. */
+    private final @Nullable Component compiled;
+
+    private ComponentTemplate(
+            final @NotNull StringTemplate source,
+            final @NotNull ComponentSerializerAdapter adapter,
+            final @Nullable Component compiled
+    ) {
+        this.source = source;
+        this.adapter = adapter;
+        this.compiled = compiled;
+    }
+
+    /**
+     * Compiles the given format string.
+     *
+     * @param source         the raw format string
+     * @param adapter        the serializer used for the format
+     * @param placeholders   the table PlaceholderAPI tokens are registered in, or
+     *                       {@code null} if they should not be treated as slots
+     * @return the compiled template
+     */
+    public static @NotNull ComponentTemplate compile(
+            final @NotNull String source,
+            final @NotNull ComponentSerializerAdapter adapter,
+            final PlaceholderTable.@Nullable Builder placeholders
+    ) {
+        final StringTemplate template = StringTemplate.compile(source, placeholders);
+        final List<TemplateSlot> slots = template.slots();
+        if (slots.isEmpty()) {
+            return new ComponentTemplate(template, adapter, adapter.deserialize(source));
+        }
+
+        if (slots.size() > MAX_SLOTS || source.indexOf(SLOT_MARKER) != -1) {
+            return new ComponentTemplate(template, adapter, null);
+        }
+
+        final StringBuilder marked = new StringBuilder(source.length());
+        int last = 0;
+        for (int i = 0; i < slots.size(); i++) {
+            final TemplateSlot slot = slots.get(i);
+            marked.append(source, last, slot.start())
+                    .append(SLOT_MARKER)
+                    .append((char) (SLOT_INDEX_BASE + i));
+            last = slot.end();
+        }
+        marked.append(source, last, source.length());
+
+        final Component component = adapter.deserialize(marked.toString());
+        final boolean[] seen = new boolean[slots.size()];
+        final boolean intact = collectMarkers(component, seen) && allSeen(seen);
+
+        return new ComponentTemplate(template, adapter, intact ? component : null);
+    }
+
+    public @NotNull String source() {
+        return this.source.source();
+    }
+
+    public @NotNull List<TemplateSlot> slots() {
+        return this.source.slots();
+    }
+
+    /**
+     * Returns {@code true} if this template has no dynamic slots.
+     */
+    public boolean isStatic() {
+        return this.source.isStatic();
+    }
+
+    /**
+     * Renders this template, resolving each slot through the given resolver.
+     *
+     * @param resolver the slot resolver for the current message
+     * @return the rendered component
+     */
+    public @NotNull Component render(final @NotNull SlotResolver resolver) {
+        final List<TemplateSlot> slots = this.source.slots();
+        if (slots.isEmpty() && this.compiled != null) {
+            return this.compiled;
+        }
+
+        final String[] values = new String[slots.size()];
+        boolean plain = this.compiled != null;
+        for (int i = 0; i < values.length; i++) {
+            final TemplateSlot slot = slots.get(i);
+            final String value = resolver.resolve(slot);
+            values[i] = value;
+            plain = plain && (slot.type() != SlotType.PLACEHOLDER || isPlain(value));
+        }
+
+        if (plain) {
+            return substitute(this.compiled, values);
+        }
+
+        return this.adapter.deserialize(this.interpolate(values));
+    }
+
+    private @NotNull String interpolate(final @NotNull String @NotNull [] values) {
+        final String raw = this.source.source();
+        final List<TemplateSlot> slots = this.source.slots();
+
+        final StringBuilder builder = new StringBuilder(raw.length() + 16);
+        int last = 0;
+        for (int i = 0; i < values.length; i++) {
+            final TemplateSlot slot = slots.get(i);
+            final String value = slot.type() == SlotType.PLACEHOLDER ? values[i] : this.adapter.escape(values[i]);
+            builder.append(raw, last, slot.start()).append(value);
+            last = slot.end();
+        }
+
+        return builder.append(raw, last, raw.length()).toString();
+    }
+
+    /**
+     * Returns a copy of the tree with every marker replaced by its value.
+     * Subtrees without markers are shared with the compiled tree.
+     */
+    private static @NotNull Component substitute(final @NotNull Component component, final @NotNull String @NotNull [] values) {
+        Component result = component;
+        if (component instanceof TextComponent textComponent) {
+            final String content = textComponent.content();
+            if (content.indexOf(SLOT_MARKER) != -1) {
+                result = textComponent.content(replaceMarkers(content, values));
+            }
+        }
+
+        final List<Component> children = component.children();
+        List<Component> replaced = null;
+        for (int i = 0; i < children.size(); i++) {
+            final Component child = children.get(i);
+            final Component substituted = substitute(child, values);
+            if (substituted != child) {
+                if (replaced == null) {
+                    replaced = new ArrayList<>(children);
+                }
+                replaced.set(i, substituted);
+            }
+        }
+
+        return replaced == null ? result : result.children(replaced);
+    }
+
+    private static @NotNull String replaceMarkers(final @NotNull String content, final @NotNull String @NotNull [] values) {
+        final int length = content.length();
+        final StringBuilder builder = new StringBuilder(length + 16);
+        int index = 0;
+        while (index < length) {
+            final char c = content.charAt(index);
+            if (c == SLOT_MARKER && index + 1 < length) {
+                builder.append(values[content.charAt(index + 1) - SLOT_INDEX_BASE]);
+                index = index + 2;
+                continue;
+            }
+
+            builder.append(c);
+            index = index + 1;
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Records every well-formed marker found in the text nodes of the tree.
+     *
+     * @return {@code false} if a marker was split, duplicated or malformed
+     */
+    private static boolean collectMarkers(final @NotNull Component component, final boolean @NotNull [] seen) {
+        if (component instanceof TextComponent textComponent) {
+            final String content = textComponent.content();
+            int index = content.indexOf(SLOT_MARKER);
+            while (index != -1) {
+                if (index + 1 >= content.length()) {
+                    return false;
+                }
+
+                final int slotIndex = content.charAt(index + 1) - SLOT_INDEX_BASE;
+                if (slotIndex < 0 || slotIndex >= seen.length || seen[slotIndex]) {
+                    return false;
+                }
+
+                seen[slotIndex] = true;
+                index = content.indexOf(SLOT_MARKER, index + 2);
+            }
+        }
+
+        for (final Component child : component.children()) {
+            if (!collectMarkers(child, seen)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean allSeen(final boolean @NotNull [] seen) {
+        for (final boolean value : seen) {
+            if (!value) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if a PlaceholderAPI value cannot change the parsed structure
+     * of the template, which is what allows it to be written straight into a text node.
+     */
+    private static boolean isPlain(final @NotNull String value) {
+        for (int i = 0; i < value.length(); i++) {
+            switch (value.charAt(i)) {
+                case '<', '>', '&', '\u00A7', '\\', SLOT_MARKER -> {
+                    return false;
+                }
+                default -> {
+                }
+            }
+        }
+        return true;
+    }
+
+}
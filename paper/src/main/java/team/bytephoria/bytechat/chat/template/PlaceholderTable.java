@@ -0,0 +1,76 @@
+package team.bytephoria.bytechat.chat.template;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The distinct PlaceholderAPI tokens referenced by a chat format, collected
+ * while its elements are compiled.
+ * <p>
+ * Every {@link SlotType#PLACEHOLDER} slot of the format holds the index of its
+ * token in this table, so all of the format's placeholders can be resolved in
+ * one batch per message and looked up by index afterwards. A format whose table
+ * is empty never needs PlaceholderAPI at all.
+ */
+public final class PlaceholderTable {
+
+    private static final PlaceholderTable EMPTY = new PlaceholderTable(List.of());
+
+    private final List<String> tokens;
+
+    private PlaceholderTable(final @NotNull List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    public static @NotNull PlaceholderTable empty() {
+        return EMPTY;
+    }
+
+    public static @NotNull Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the distinct tokens, in order of first appearance.
+     */
+    public @NotNull List<String> tokens() {
+        return this.tokens;
+    }
+
+    public int size() {
+        return this.tokens.size();
+    }
+
+    public boolean isEmpty() {
+        return this.tokens.isEmpty();
+    }
+
+    public static final class Builder {
+
+        private final List<String> tokens = new ArrayList<>();
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Registers a token and returns its index, reusing the index of an
+         * identical token registered earlier.
+         */
+        public int register(final @NotNull String token) {
+            return this.indexes.computeIfAbsent(token, key -> {
+                this.tokens.add(key);
+                return this.tokens.size() - 1;
+            });
+        }
+
+        public @NotNull PlaceholderTable build() {
+            return this.tokens.isEmpty() ? EMPTY : new PlaceholderTable(List.copyOf(this.tokens));
+        }
+    }
+
+}
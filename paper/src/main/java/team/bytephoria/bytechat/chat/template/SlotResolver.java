@@ -0,0 +1,19 @@
+package team.bytephoria.bytechat.chat.template;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Resolves the value of a {@link TemplateSlot} for a single render.
+ */
+@FunctionalInterface
+public interface SlotResolver {
+
+    /**
+     * Returns the value that replaces the given slot.
+     *
+     * @param slot the slot to resolve
+     * @return the resolved value, never {@code null}
+     */
+    @NotNull String resolve(final @NotNull TemplateSlot slot);
+
+}
@@ -0,0 +1,117 @@
+package team.bytephoria.bytechat.chat.template;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.util.exception.NonInstantiableClassException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the dynamic slots of a template source string in a single pass.
+ * <p>
+ * PlaceholderAPI tokens are detected with the same rules PlaceholderAPI applies
+ * when replacing a string: a token starts at {@code %}, ends at the next {@code %},
+ * and is discarded if a space appears before the identifier's first underscore.
+ * This keeps per-token resolution equivalent to resolving the whole string at once.
+ */
+final class SlotScanner {
+
+    private static final String PLAYER_TOKEN = "{player}";
+    private static final String MESSAGE_TOKEN = "{message}";
+
+    private static final char PLACEHOLDER_DELIMITER = '%';
+
+    private SlotScanner() {
+        throw new NonInstantiableClassException();
+    }
+
+    /**
+     * @param source       the raw configuration value
+     * @param placeholders the table PlaceholderAPI tokens are registered in, or
+     *                     {@code null} if they should not be treated as slots
+     */
+    static @NotNull List<TemplateSlot> scan(final @NotNull String source, final PlaceholderTable.@Nullable Builder placeholders) {
+        List<TemplateSlot> slots = null;
+
+        final int length = source.length();
+        int index = 0;
+        while (index < length) {
+            final char c = source.charAt(index);
+
+            if (c == '{') {
+                if (source.startsWith(PLAYER_TOKEN, index)) {
+                    slots = add(slots, new TemplateSlot(SlotType.PLAYER, PLAYER_TOKEN, index, index + PLAYER_TOKEN.length(), -1));
+                    index = index + PLAYER_TOKEN.length();
+                    continue;
+                }
+
+                if (source.startsWith(MESSAGE_TOKEN, index)) {
+                    slots = add(slots, new TemplateSlot(SlotType.MESSAGE, MESSAGE_TOKEN, index, index + MESSAGE_TOKEN.length(), -1));
+                    index = index + MESSAGE_TOKEN.length();
+                    continue;
+                }
+            }
+
+            if (placeholders != null && c == PLACEHOLDER_DELIMITER) {
+                final int end = findPlaceholderEnd(source, index);
+                if (end > 0) {
+                    final String token = source.substring(index, end);
+                    slots = add(slots, new TemplateSlot(SlotType.PLACEHOLDER, token, index, end, placeholders.register(token)));
+                    index = end;
+                    continue;
+                }
+
+                // Mirror PlaceholderAPI: an invalid token consumes everything it scanned.
+                index = -end;
+                continue;
+            }
+
+            index = index + 1;
+        }
+
+        return slots == null ? List.of() : List.copyOf(slots);
+    }
+
+    /**
+     * Scans a PlaceholderAPI token starting at {@code start}.
+     *
+     * @return the exclusive end index of a valid token, or the negated index at
+     *         which scanning should resume when the token is invalid
+     */
+    private static int findPlaceholderEnd(final @NotNull String source, final int start) {
+        final int length = source.length();
+        if (start + 1 >= length) {
+            return -(start + 1);
+        }
+
+        boolean identified = false;
+        int index = start + 1;
+        while (index < length) {
+            final char c = source.charAt(index);
+            if (c == ' ' && !identified) {
+                return -(index + 1);
+            }
+
+            if (c == PLACEHOLDER_DELIMITER) {
+                // An empty "%%" token never resolves, so it is kept as static text.
+                return index == start + 1 ? -(index + 1) : index + 1;
+            }
+
+            if (c == '_') {
+                identified = true;
+            }
+
+            index = index + 1;
+        }
+
+        return -length;
+    }
+
+    private static @NotNull List<TemplateSlot> add(final List<TemplateSlot> slots, final @NotNull TemplateSlot slot) {
+        final List<TemplateSlot> target = slots == null ? new ArrayList<>(2) : slots;
+        target.add(slot);
+        return target;
+    }
+
+}
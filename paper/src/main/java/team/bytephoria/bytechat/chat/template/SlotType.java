@@ -0,0 +1,17 @@
+package team.bytephoria.bytechat.chat.template;
+
+/**
+ * The kinds of dynamic values a compiled template can reference.
+ */
+public enum SlotType {
+
+    /** The internal {@code {player}} placeholder, resolved to the sender's name. */
+    PLAYER,
+
+    /** The internal {@code {message}} placeholder, resolved to the plain text of the sender's message. */
+    MESSAGE,
+
+    /** A PlaceholderAPI placeholder such as {@code %vault_prefix%}. */
+    PLACEHOLDER
+
+}
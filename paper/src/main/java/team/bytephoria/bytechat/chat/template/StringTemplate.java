@@ -0,0 +1,68 @@
+package team.bytephoria.bytechat.chat.template;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * A plain string with pre-located dynamic slots, used for values that are never
+ * deserialized into components such as click actions.
+ */
+public final class StringTemplate {
+
+    private final String source;
+    private final List<TemplateSlot> slots;
+
+    private StringTemplate(final @NotNull String source, final @NotNull List<TemplateSlot> slots) {
+        this.source = source;
+        this.slots = slots;
+    }
+
+    /**
+     * Locates every slot in the given source string.
+     *
+     * @param source         the raw configuration value
+     * @param placeholders   the table PlaceholderAPI tokens are registered in, or
+     *                       {@code null} if they should not be treated as slots
+     * @return the compiled template
+     */
+    public static @NotNull StringTemplate compile(final @NotNull String source, final PlaceholderTable.@Nullable Builder placeholders) {
+        return new StringTemplate(source, SlotScanner.scan(source, placeholders));
+    }
+
+    public @NotNull String source() {
+        return this.source;
+    }
+
+    public @NotNull List<TemplateSlot> slots() {
+        return this.slots;
+    }
+
+    /**
+     * Returns {@code true} if this template has no dynamic slots.
+     */
+    public boolean isStatic() {
+        return this.slots.isEmpty();
+    }
+
+    /**
+     * Replaces every slot with the value supplied by the resolver.
+     */
+    public @NotNull String render(final @NotNull SlotResolver resolver) {
+        if (this.slots.isEmpty()) {
+            return this.source;
+        }
+
+        final StringBuilder builder = new StringBuilder(this.source.length() + 16);
+        int last = 0;
+        for (final TemplateSlot slot : this.slots) {
+            builder.append(this.source, last, slot.start())
+                    .append(resolver.resolve(slot));
+            last = slot.end();
+        }
+
+        return builder.append(this.source, last, this.source.length()).toString();
+    }
+
+}
@@ -0,0 +1,21 @@
+package team.bytephoria.bytechat.chat.template;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A single dynamic placeholder found inside a template source string.
+ *
+ * @param type  the kind of value the slot is resolved to
+ * @param token the raw token as written in the configuration (e.g. {@code %vault_prefix%})
+ * @param start the index of the first character of the token in the source string
+ * @param end   the index after the last character of the token in the source string
+ * @param placeholderIndex for {@link SlotType#PLACEHOLDER} slots, the index of the token
+ *                         in the format's {@link PlaceholderTable}; {@code -1} otherwise
+ */
+public record TemplateSlot(
+        @NotNull SlotType type,
+        @NotNull String token,
+        int start,
+        int end,
+        int placeholderIndex
+) {}
@@ -3,14 +3,26 @@ package team.bytephoria.bytechat.commands;
 
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.defaults.BukkitCommand;
+import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import team.bytephoria.bytechat.FeaturePermission;
 import team.bytephoria.bytechat.PaperPlugin;
+import team.bytephoria.bytechat.PluginRuntime;
+import team.bytephoria.bytechat.capability.Capability;
+import team.bytephoria.bytechat.capability.CapabilitySnapshot;
+import team.bytephoria.bytechat.chat.header.HeaderCache;
+import team.bytephoria.bytechat.placeholder.PlaceholderCache;
+import team.bytephoria.bytechat.registry.PaperChatPipeline;
+import team.bytephoria.bytechat.service.EntitySnapshotService;
+import team.bytephoria.bytechat.ui.PreviewStore;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.logging.Level;
 
 public final class ChatCommand extends BukkitCommand {
 
@@ -33,7 +45,7 @@ public final class ChatCommand extends BukkitCommand {
         }
 
         if (args.length == 0) {
-            commandSender.sendMessage(Component.text("Invalid command usage. Try '/bytechat reload' or '/bytechat mute'.", NamedTextColor.RED));
+            commandSender.sendMessage(Component.text("Invalid command usage. Try '/bytechat reload', '/bytechat mute', '/bytechat stats' or '/bytechat capabilities <player>'.", NamedTextColor.RED));
             return true;
         }
 
@@ -46,8 +58,16 @@ public final class ChatCommand extends BukkitCommand {
                     return true;
                 }
 
-                this.paperPlugin.reload();
-                commandSender.sendMessage(Component.text("ByteChat has been successfully reloaded!", NamedTextColor.GREEN));
+                commandSender.sendMessage(Component.text("Reloading ByteChat...", NamedTextColor.GRAY));
+                this.paperPlugin.reload().whenComplete((ignored, throwable) -> {
+                    if (throwable == null) {
+                        commandSender.sendMessage(Component.text("ByteChat has been successfully reloaded!", NamedTextColor.GREEN));
+                        return;
+                    }
+
+                    this.paperPlugin.getLogger().log(Level.SEVERE, "Could not reload ByteChat", throwable);
+                    commandSender.sendMessage(Component.text("ByteChat could not be reloaded, the previous configuration is still in use. Check the console for details.", NamedTextColor.RED));
+                });
                 return true;
             }
 
@@ -67,8 +87,96 @@ public final class ChatCommand extends BukkitCommand {
                 return true;
             }
 
+            case "stats" -> {
+                if (!commandSender.hasPermission(FeaturePermission.Command.STATS)) {
+                    commandSender.sendMessage(Component.text("You don't have permission to execute this command!", NamedTextColor.RED));
+                    return true;
+                }
+
+                final PluginRuntime runtime = this.paperPlugin.runtime();
+                final PlaceholderCache.Stats stats = runtime.placeholderCache().stats();
+                commandSender.sendMessage(Component.text("Placeholder cache:", NamedTextColor.GOLD));
+                commandSender.sendMessage(Component.text(String.format(
+                        " Hits: %d, Misses: %d (%.1f%% hit ratio)",
+                        stats.hits(), stats.misses(), stats.hitRatio() * 100.0D
+                ), NamedTextColor.GRAY));
+                commandSender.sendMessage(Component.text(String.format(
+                        " Refreshes: %d, Evictions: %d, Size: %d",
+                        stats.refreshes(), stats.evictions(), stats.size()
+                ), NamedTextColor.GRAY));
+
+                final HeaderCache.Stats headerStats = runtime.headerCache().stats();
+                commandSender.sendMessage(Component.text("Header cache:", NamedTextColor.GOLD));
+                commandSender.sendMessage(Component.text(String.format(
+                        " Hits: %d, Misses: %d (%.1f%% hit ratio), Size: %d",
+                        headerStats.hits(), headerStats.misses(), headerStats.hitRatio() * 100.0D, headerStats.size()
+                ), NamedTextColor.GRAY));
+
+                final PreviewStore.Stats previewStats = this.paperPlugin.previewStore().stats();
+                commandSender.sendMessage(Component.text("Preview store:", NamedTextColor.GOLD));
+                commandSender.sendMessage(Component.text(String.format(
+                        " Entries: %d (%d compacted), Bytes: %d",
+                        previewStats.entries(), previewStats.compacted(), previewStats.bytes()
+                ), NamedTextColor.GRAY));
+                commandSender.sendMessage(Component.text(String.format(
+                        " Reused: %d, Opened: %d, Expired clicks: %d, Evictions: %d, Compactions: %d",
+                        previewStats.reused(), previewStats.hits(), previewStats.expired(), previewStats.evictions(), previewStats.compactions()
+                ), NamedTextColor.GRAY));
+
+                final EntitySnapshotService.Stats captureStats = runtime.entitySnapshotService().stats();
+                commandSender.sendMessage(Component.text("Tag captures:", NamedTextColor.GOLD));
+                commandSender.sendMessage(Component.text(String.format(
+                        " Direct: %d, Scheduled: %d, Timeouts: %d, Fallbacks: %d",
+                        captureStats.direct(), captureStats.scheduled(), captureStats.timeouts(), captureStats.fallbacks()
+                ), NamedTextColor.GRAY));
+                commandSender.sendMessage(Component.text(String.format(
+                        " Wait: %.2f ms average, %.2f ms max",
+                        captureStats.averageWaitMillis(), captureStats.maxWaitNanos() / 1_000_000.0D
+                ), NamedTextColor.GRAY));
+
+                commandSender.sendMessage(Component.text("Chat pipeline:", NamedTextColor.GOLD));
+                for (final PaperChatPipeline.Stats stageStats : this.paperPlugin.chatPipeline().stats()) {
+                    commandSender.sendMessage(Component.text(String.format(
+                            " %s (%d): %d messages, %d failures, %.2f µs average",
+                            stageStats.id(), stageStats.priority(), stageStats.calls(), stageStats.failures(), stageStats.averageMicros()
+                    ), NamedTextColor.GRAY));
+                }
+                return true;
+            }
+
+            case "capabilities" -> {
+                if (!commandSender.hasPermission(FeaturePermission.Command.DEBUG)) {
+                    commandSender.sendMessage(Component.text("You don't have permission to execute this command!", NamedTextColor.RED));
+                    return true;
+                }
+
+                if (args.length < 2) {
+                    commandSender.sendMessage(Component.text("Invalid command usage. Try '/bytechat capabilities <player>'.", NamedTextColor.RED));
+                    return true;
+                }
+
+                final Player target = Bukkit.getPlayerExact(args[1]);
+                if (target == null) {
+                    commandSender.sendMessage(Component.text("That player is not online!", NamedTextColor.RED));
+                    return true;
+                }
+
+                final CapabilitySnapshot snapshot = this.paperPlugin.capabilityService().snapshot(target);
+                commandSender.sendMessage(Component.text(
+                        "Capabilities of " + target.getName() + " (0x" + Long.toHexString(snapshot.bits()) + "):",
+                        NamedTextColor.GOLD
+                ));
+
+                for (final Capability capability : Capability.values()) {
+                    final boolean granted = snapshot.has(capability);
+                    commandSender.sendMessage(Component.text(" " + capability.permission() + ": ", NamedTextColor.GRAY)
+                            .append(Component.text(granted ? "yes" : "no", granted ? NamedTextColor.GREEN : NamedTextColor.RED)));
+                }
+                return true;
+            }
+
             default -> {
-                commandSender.sendMessage(Component.text("Invalid command usage. Try '/bytechat reload' or '/bytechat mute'.", NamedTextColor.RED));
+                commandSender.sendMessage(Component.text("Invalid command usage. Try '/bytechat reload', '/bytechat mute', '/bytechat stats' or '/bytechat capabilities <player>'.", NamedTextColor.RED));
                 return true;
             }
         }
@@ -81,7 +189,15 @@ public final class ChatCommand extends BukkitCommand {
             final @NotNull String @NotNull [] args
     ) {
         if (args.length == 1) {
-            return List.of("reload", "mute");
+            return List.of("reload", "mute", "stats", "capabilities");
+        }
+
+        if (args.length == 2 && args[0].equalsIgnoreCase("capabilities")) {
+            final List<String> names = new ArrayList<>();
+            for (final Player player : Bukkit.getOnlinePlayers()) {
+                names.add(player.getName());
+            }
+            return names;
         }
         return Collections.emptyList();
     }
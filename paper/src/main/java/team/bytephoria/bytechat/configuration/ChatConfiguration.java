@@ -4,6 +4,9 @@ package team.bytephoria.bytechat.configuration;
 import org.spongepowered.configurate.objectmapping.ConfigSerializable;
 import org.spongepowered.configurate.objectmapping.meta.Setting;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @ConfigSerializable
 public final class ChatConfiguration {
 
@@ -13,6 +16,9 @@ public final class ChatConfiguration {
     @Setting("chat")
     private Chat chat = new Chat();
 
+    @Setting("placeholders")
+    private Placeholders placeholders = new Placeholders();
+
     public Settings settings() {
         return settings;
     }
@@ -21,6 +27,10 @@ public final class ChatConfiguration {
         return chat;
     }
 
+    public Placeholders placeholders() {
+        return this.placeholders;
+    }
+
     @ConfigSerializable
     public static final class Settings {
 
@@ -30,6 +40,9 @@ public final class ChatConfiguration {
         @Setting("player-input-serializer")
         private String playerInputSerializer = "LIMITED_MINI_MESSAGE";
 
+        @Setting("permission-cache-seconds")
+        private long permissionCacheSeconds = 60L;
+
         public String serializer() {
             return serializer;
         }
@@ -37,6 +50,10 @@ public final class ChatConfiguration {
         public String playerInputSerializer() {
             return this.playerInputSerializer;
         }
+
+        public long permissionCacheSeconds() {
+            return this.permissionCacheSeconds;
+        }
     }
 
     @ConfigSerializable
@@ -57,6 +74,9 @@ public final class ChatConfiguration {
         @Setting("tags")
         private Tags tags = new Tags();
 
+        @Setting("header-cache")
+        private HeaderCache headerCache = new HeaderCache();
+
         public boolean enabled() {
             return enabled;
         }
@@ -77,6 +97,28 @@ public final class ChatConfiguration {
             return tags;
         }
 
+        public HeaderCache headerCache() {
+            return this.headerCache;
+        }
+
+    }
+
+    @ConfigSerializable
+    public static final class HeaderCache {
+
+        @Setting("enabled")
+        private boolean enabled = true;
+
+        @Setting("ttl-millis")
+        private long ttlMillis = 1000L;
+
+        public boolean enabled() {
+            return this.enabled;
+        }
+
+        public long ttlMillis() {
+            return this.ttlMillis;
+        }
     }
 
     @ConfigSerializable
@@ -88,6 +130,12 @@ public final class ChatConfiguration {
         @Setting("trigger-char")
         private char triggerChar = '@';
 
+        @Setting("without-trigger")
+        private boolean withoutTrigger = false;
+
+        @Setting("tab-completion")
+        private boolean tabCompletion = true;
+
         @Setting("format")
         private String format = "<yellow>{tag}</yellow>";
 
@@ -100,6 +148,12 @@ public final class ChatConfiguration {
         @Setting("sound")
         private Sound sound = new Sound();
 
+        @Setting("sound-cooldown-millis")
+        private long soundCooldownMillis = 1000L;
+
+        @Setting("groups")
+        private Groups groups = new Groups();
+
         public boolean enabled() {
             return this.enabled;
         }
@@ -108,6 +162,14 @@ public final class ChatConfiguration {
             return this.triggerChar;
         }
 
+        public boolean withoutTrigger() {
+            return this.withoutTrigger;
+        }
+
+        public boolean tabCompletion() {
+            return this.tabCompletion;
+        }
+
         public String format() {
             return this.format;
         }
@@ -123,6 +185,74 @@ public final class ChatConfiguration {
         public Sound sound() {
             return this.sound;
         }
+
+        public long soundCooldownMillis() {
+            return this.soundCooldownMillis;
+        }
+
+        public Groups groups() {
+            return this.groups;
+        }
+
+        @ConfigSerializable
+        public static final class Groups {
+
+            @Setting("enabled")
+            private boolean enabled = true;
+
+            @Setting("format")
+            private String format = "<gold>@{group}</gold>";
+
+            @Setting("definitions")
+            private Map<String, Group> definitions = defaultDefinitions();
+
+            public boolean enabled() {
+                return this.enabled;
+            }
+
+            public String format() {
+                return this.format;
+            }
+
+            public Map<String, Group> definitions() {
+                return this.definitions;
+            }
+
+            private static Map<String, Group> defaultDefinitions() {
+                final Map<String, Group> definitions = new LinkedHashMap<>();
+                definitions.put("everyone", new Group("EVERYONE", ""));
+                definitions.put("here", new Group("WORLD", ""));
+                definitions.put("world", new Group("WORLD", ""));
+                definitions.put("staff", new Group("PERMISSION", "bytechat.group.staff"));
+                return definitions;
+            }
+        }
+
+        @ConfigSerializable
+        public static final class Group {
+
+            @Setting("type")
+            private String type = "EVERYONE";
+
+            @Setting("permission")
+            private String permission = "";
+
+            public Group() {
+            }
+
+            private Group(final String type, final String permission) {
+                this.type = type;
+                this.permission = permission;
+            }
+
+            public String type() {
+                return this.type;
+            }
+
+            public String permission() {
+                return this.permission;
+            }
+        }
     }
 
     @ConfigSerializable
@@ -146,6 +276,12 @@ public final class ChatConfiguration {
         @Setting("ender-chest")
         private EnderChestTag enderChest = new EnderChestTag();
 
+        @Setting("preview-store")
+        private PreviewStore previewStore = new PreviewStore();
+
+        @Setting("capture")
+        private Capture capture = new Capture();
+
         public boolean enabled() {
             return this.enabled;
         }
@@ -170,6 +306,14 @@ public final class ChatConfiguration {
             return this.enderChest;
         }
 
+        public PreviewStore previewStore() {
+            return this.previewStore;
+        }
+
+        public Capture capture() {
+            return this.capture;
+        }
+
         @ConfigSerializable
         public static final class ItemTag {
 
@@ -182,6 +326,9 @@ public final class ChatConfiguration {
             @Setting("empty-hand-color")
             private String emptyHandColor = "GRAY";
 
+            @Setting("hover")
+            private Hover hover = new Hover();
+
             public boolean enabled() {
                 return this.enabled;
             }
@@ -193,6 +340,56 @@ public final class ChatConfiguration {
             public String emptyHandColor() {
                 return this.emptyHandColor;
             }
+
+            public Hover hover() {
+                return this.hover;
+            }
+
+            @ConfigSerializable
+            public static final class Hover {
+
+                @Setting("max-bytes")
+                private int maxBytes = 4096;
+
+                @Setting("max-lore-lines")
+                private int maxLoreLines = 8;
+
+                @Setting("cache-size")
+                private int cacheSize = 256;
+
+                @Setting("hidden-pages-text")
+                private String hiddenPagesText = "+{count} pages";
+
+                @Setting("hidden-items-text")
+                private String hiddenItemsText = "+{count} items";
+
+                @Setting("hidden-lore-text")
+                private String hiddenLoreText = "+{count} lines";
+
+                public int maxBytes() {
+                    return this.maxBytes;
+                }
+
+                public int maxLoreLines() {
+                    return this.maxLoreLines;
+                }
+
+                public int cacheSize() {
+                    return this.cacheSize;
+                }
+
+                public String hiddenPagesText() {
+                    return this.hiddenPagesText;
+                }
+
+                public String hiddenItemsText() {
+                    return this.hiddenItemsText;
+                }
+
+                public String hiddenLoreText() {
+                    return this.hiddenLoreText;
+                }
+            }
         }
 
         @ConfigSerializable
@@ -286,6 +483,70 @@ public final class ChatConfiguration {
                 return this.expirationSeconds;
             }
         }
+
+        @ConfigSerializable
+        public static final class Capture {
+
+            @Setting("timeout-millis")
+            private long timeoutMillis = 100L;
+
+            @Setting("fallback-max-age-seconds")
+            private int fallbackMaxAgeSeconds = 30;
+
+            public long timeoutMillis() {
+                return this.timeoutMillis;
+            }
+
+            public int fallbackMaxAgeSeconds() {
+                return this.fallbackMaxAgeSeconds;
+            }
+        }
+
+        @ConfigSerializable
+        public static final class PreviewStore {
+
+            @Setting("max-bytes")
+            private long maxBytes = 16L * 1024L * 1024L;
+
+            @Setting("max-age-seconds")
+            private int maxAgeSeconds = 900;
+
+            @Setting("compact-after-seconds")
+            private int compactAfterSeconds = 60;
+
+            @Setting("dedup-window-millis")
+            private long dedupWindowMillis = 10000L;
+
+            @Setting("expired-text")
+            private String expiredText = "This preview has expired.";
+
+            @Setting("expired-color")
+            private String expiredColor = "RED";
+
+            public long maxBytes() {
+                return this.maxBytes;
+            }
+
+            public int maxAgeSeconds() {
+                return this.maxAgeSeconds;
+            }
+
+            public int compactAfterSeconds() {
+                return this.compactAfterSeconds;
+            }
+
+            public long dedupWindowMillis() {
+                return this.dedupWindowMillis;
+            }
+
+            public String expiredText() {
+                return this.expiredText;
+            }
+
+            public String expiredColor() {
+                return this.expiredColor;
+            }
+        }
     }
 
     @ConfigSerializable
@@ -335,6 +596,56 @@ public final class ChatConfiguration {
 
     }
 
+    @ConfigSerializable
+    public static final class Placeholders {
+
+        @Setting("cache")
+        private Cache cache = new Cache();
+
+        public Cache cache() {
+            return this.cache;
+        }
+
+        @ConfigSerializable
+        public static final class Cache {
+
+            @Setting("enabled")
+            private boolean enabled = true;
+
+            @Setting("default-ttl-millis")
+            private long defaultTtlMillis = 1000L;
+
+            @Setting("max-entries")
+            private int maxEntries = 10000;
+
+            @Setting("refresh-ahead")
+            private double refreshAhead = 0.8D;
+
+            @Setting("ttl-overrides")
+            private Map<String, Long> ttlOverrides = new LinkedHashMap<>();
+
+            public boolean enabled() {
+                return this.enabled;
+            }
+
+            public long defaultTtlMillis() {
+                return this.defaultTtlMillis;
+            }
+
+            public int maxEntries() {
+                return this.maxEntries;
+            }
+
+            public double refreshAhead() {
+                return this.refreshAhead;
+            }
+
+            public Map<String, Long> ttlOverrides() {
+                return this.ttlOverrides;
+            }
+        }
+    }
+
     @ConfigSerializable
     public static final class Sound {
 
@@ -0,0 +1,50 @@
+package team.bytephoria.bytechat.hook;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import team.bytephoria.bytechat.PaperPlugin;
+import team.bytephoria.bytechat.api.hook.InvalidationHook;
+
+import java.util.UUID;
+
+/**
+ * The {@link InvalidationHook} registered in the Bukkit services manager.
+ * <p>
+ * Other plugins obtain it with
+ * {@code Bukkit.getServicesManager().load(InvalidationHook.class)} and fire it
+ * whenever a player's permissions change. Calls are serialized with reloads:
+ * they apply either to the runtime being replaced, before the reloaded one
+ * reads every permission, or to the reloaded one once it is in use.
+ */
+public final class PaperInvalidationHook implements InvalidationHook {
+
+    private final PaperPlugin paperPlugin;
+
+    public PaperInvalidationHook(final @NotNull PaperPlugin paperPlugin) {
+        this.paperPlugin = paperPlugin;
+    }
+
+    @Override
+    public void invalidate(final @NotNull UUID uuid) {
+        this.paperPlugin.capabilityService().refresh(uuid);
+
+        final Player player = Bukkit.getPlayer(uuid);
+        this.paperPlugin.updateOnlinePlayers(runtime -> {
+            runtime.chatManager().invalidate(uuid);
+            if (player != null) {
+                runtime.audienceIndex().refreshPermissions(player);
+            }
+        });
+    }
+
+    @Override
+    public void invalidateAll() {
+        this.paperPlugin.capabilityService().invalidateAll();
+        this.paperPlugin.updateOnlinePlayers(runtime -> {
+            runtime.chatManager().invalidateAll();
+            runtime.audienceIndex().refreshAllPermissions();
+        });
+    }
+
+}
@@ -8,11 +8,12 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.jetbrains.annotations.NotNull;
-import team.bytephoria.bytechat.FeaturePermission;
 import team.bytephoria.bytechat.PaperPlugin;
+import team.bytephoria.bytechat.PluginRuntime;
+import team.bytephoria.bytechat.capability.Capability;
+import team.bytephoria.bytechat.capability.CapabilitySnapshot;
 import team.bytephoria.bytechat.chat.format.ChatFormat;
 import team.bytephoria.bytechat.chat.renderer.ViewerUnawareChatRenderer;
-import team.bytephoria.bytechat.manager.ChatManager;
 
 public final class AsyncChatListener implements Listener {
 
@@ -23,26 +24,32 @@ public final class AsyncChatListener implements Listener {
 
     @EventHandler
     public void onAsyncPlayerChatEvent(final @NotNull AsyncChatEvent asyncChatEvent) {
+        // Read once, so the whole message is rendered with a single configuration
+        // even if a reload completes meanwhile.
+        final PluginRuntime runtime = this.paperPlugin.runtime();
+        if (!runtime.chatConfiguration().chat().enabled()) {
+            return;
+        }
+
         final Player player = asyncChatEvent.getPlayer();
+        final CapabilitySnapshot capabilities = this.paperPlugin.capabilityService().snapshot(player);
 
-        if (this.paperPlugin.muteService().isChatMuted() && !player.hasPermission(FeaturePermission.Feature.BYPASS_MUTE)) {
+        if (this.paperPlugin.muteService().isChatMuted() && !capabilities.has(Capability.BYPASS_MUTE)) {
             asyncChatEvent.setCancelled(true);
             player.sendMessage(Component.text("The chat is currently muted!", NamedTextColor.RED));
             return;
         }
 
-        final ChatManager chatManager = this.paperPlugin.chatManager();
-        final ChatFormat chatFormat = chatManager.search(player);
+        final ChatFormat chatFormat = runtime.chatManager().cachedSearch(player);
 
         if (chatFormat != null) {
             final ViewerUnawareChatRenderer viewerUnawareChatRenderer = new ViewerUnawareChatRenderer(
                     chatFormat,
                     asyncChatEvent.signedMessage(),
-                    this.paperPlugin.chatConfiguration(),
-                    this.paperPlugin.mentionResolverService(),
-                    this.paperPlugin.tagResolverService(),
-                    this.paperPlugin.serializerAdapter(),
-                    this.paperPlugin.chatSerializerAdapter()
+                    this.paperPlugin.chatPipeline(),
+                    runtime.builtinStages(),
+                    runtime.placeholderCache(),
+                    runtime.headerCache()
             );
 
             asyncChatEvent.renderer(ChatRenderer.viewerUnaware(viewerUnawareChatRenderer));
@@ -0,0 +1,88 @@
+package team.bytephoria.bytechat.listener;
+
+import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.jetbrains.annotations.NotNull;
+import team.bytephoria.bytechat.PaperPlugin;
+import team.bytephoria.bytechat.api.hook.VisibilityHook;
+import team.bytephoria.bytechat.capability.Capability;
+import team.bytephoria.bytechat.configuration.ChatConfiguration;
+import team.bytephoria.bytechat.service.MentionCompletionService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Completes a trigger-prefixed word at the end of a plain chat buffer to the
+ * names of online players.
+ * <p>
+ * Vanilla clients complete plain chat themselves, from the entries kept by
+ * {@link MentionCompletionService}; this listener answers the clients that ask
+ * the server instead. Command buffers are left to the command's own completion,
+ * where a trigger word is usually an entity selector such as {@code @a} or
+ * {@code @p}, and where answering would replace every other suggestion.
+ * <p>
+ * Completions are served from the {@link team.bytephoria.bytechat.player.PlayerNameIndex}
+ * prefix trie on the asynchronous tab-completion thread, so the main thread is
+ * never involved. Players hidden from the sender, through the server's
+ * visibility API or a registered {@link VisibilityHook}, are never suggested.
+ */
+public final class MentionTabCompleteListener implements Listener {
+
+    private static final char WORD_SEPARATOR = ' ';
+    private static final int MAX_SUGGESTIONS = 100;
+
+    private final PaperPlugin paperPlugin;
+    public MentionTabCompleteListener(final @NotNull PaperPlugin paperPlugin) {
+        this.paperPlugin = paperPlugin;
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onAsyncTabComplete(final @NotNull AsyncTabCompleteEvent asyncTabCompleteEvent) {
+        if (asyncTabCompleteEvent.isHandled()
+                || asyncTabCompleteEvent.isCommand()
+                || !(asyncTabCompleteEvent.getSender() instanceof final Player player)) {
+            return;
+        }
+
+        final ChatConfiguration.Chat chat = this.paperPlugin.runtime().chatConfiguration().chat();
+        final ChatConfiguration.Mentions mentions = chat.mentions();
+        if (!chat.enabled() || !mentions.enabled() || !mentions.tabCompletion()) {
+            return;
+        }
+
+        final String buffer = asyncTabCompleteEvent.getBuffer();
+        final int wordStart = buffer.lastIndexOf(WORD_SEPARATOR) + 1;
+        final char triggerChar = mentions.triggerChar();
+        if (wordStart >= buffer.length() || buffer.charAt(wordStart) != triggerChar) {
+            return;
+        }
+
+        if (!this.paperPlugin.capabilityService().snapshot(player).has(Capability.FORMAT_MENTION)) {
+            return;
+        }
+
+        // Filter while collecting, so hidden players never use up the limit.
+        final VisibilityHook visibilityHook = Bukkit.getServicesManager().load(VisibilityHook.class);
+        final List<Player> candidates = this.paperPlugin.playerNameIndex().complete(
+                buffer.substring(wordStart + 1),
+                MAX_SUGGESTIONS,
+                candidate -> MentionCompletionService.isVisible(player, candidate, visibilityHook)
+        );
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        final List<String> completions = new ArrayList<>(candidates.size());
+        for (final Player candidate : candidates) {
+            completions.add(triggerChar + candidate.getName());
+        }
+
+        asyncTabCompleteEvent.setCompletions(completions);
+        asyncTabCompleteEvent.setHandled(true);
+    }
+
+}
@@ -0,0 +1,62 @@
+package team.bytephoria.bytechat.listener;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.jetbrains.annotations.NotNull;
+import team.bytephoria.bytechat.PaperPlugin;
+
+import java.util.UUID;
+
+/**
+ * Keeps per-player state held by the plugin up to date as players join,
+ * change worlds and leave.
+ */
+public final class PlayerConnectionListener implements Listener {
+
+    private final PaperPlugin paperPlugin;
+    public PlayerConnectionListener(final @NotNull PaperPlugin paperPlugin) {
+        this.paperPlugin = paperPlugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(final @NotNull PlayerJoinEvent playerJoinEvent) {
+        final Player player = playerJoinEvent.getPlayer();
+        this.paperPlugin.capabilityService().refresh(player);
+        this.paperPlugin.updateOnlinePlayers(runtime -> {
+            runtime.chatManager().invalidate(player.getUniqueId());
+            this.paperPlugin.playerNameIndex().add(player);
+            runtime.audienceIndex().add(player);
+        });
+        this.paperPlugin.mentionCompletionService().join(player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(final @NotNull PlayerChangedWorldEvent playerChangedWorldEvent) {
+        final Player player = playerChangedWorldEvent.getPlayer();
+        this.paperPlugin.updateOnlinePlayers(runtime -> runtime.audienceIndex().changeWorld(player));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(final @NotNull PlayerQuitEvent playerQuitEvent) {
+        final Player player = playerQuitEvent.getPlayer();
+        final UUID uuid = player.getUniqueId();
+        this.paperPlugin.updateOnlinePlayers(runtime -> {
+            this.paperPlugin.playerNameIndex().remove(player);
+            runtime.audienceIndex().remove(player);
+            runtime.placeholderCache().invalidate(uuid);
+            runtime.headerCache().invalidate(uuid);
+            runtime.chatManager().invalidate(uuid);
+            runtime.mentionNotifier().invalidate(uuid);
+            runtime.entitySnapshotService().invalidate(uuid);
+        });
+        this.paperPlugin.mentionCompletionService().quit(player);
+        this.paperPlugin.capabilityService().invalidate(uuid);
+        this.paperPlugin.previewStore().invalidate(uuid);
+    }
+
+}
@@ -6,9 +6,14 @@ import org.jetbrains.annotations.Nullable;
 import team.bytephoria.bytechat.api.Loader;
 import team.bytephoria.bytechat.chat.element.ChatElement;
 import team.bytephoria.bytechat.chat.format.ChatFormat;
+import team.bytephoria.bytechat.chat.template.ChatElementTemplate;
+import team.bytephoria.bytechat.chat.template.PlaceholderTable;
 import team.bytephoria.bytechat.configuration.FormatConfiguration;
+import team.bytephoria.bytechat.placeholder.PlaceholderResolver;
 import team.bytephoria.bytechat.registry.ChatFormatRegistry;
+import team.bytephoria.bytechat.serializer.component.ComponentSerializerAdapter;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,18 +24,27 @@ import java.util.Map;
  * This loader reads {@link FormatConfiguration} data, constructs
  * corresponding {@link ChatFormat} and {@link ChatElement} objects,
  * and registers them in the {@link ChatFormatRegistry}.
+ * <p>
+ * Every element is also compiled into a {@link ChatElementTemplate} so that the
+ * format markup is deserialized once here instead of on every chat message.
+ * The PlaceholderAPI tokens found while compiling are collected into the
+ * format's {@link PlaceholderTable}, which lets the renderer resolve them in a
+ * single batch, or skip PlaceholderAPI entirely for formats that use none.
  */
 public final class ChatFormatLoader implements Loader {
 
     private final ChatFormatRegistry registry;
     private final FormatConfiguration configuration;
+    private final ComponentSerializerAdapter serializerAdapter;
 
     public ChatFormatLoader(
             final @NotNull ChatFormatRegistry registry,
-            final @NotNull FormatConfiguration configuration
+            final @NotNull FormatConfiguration configuration,
+            final @NotNull ComponentSerializerAdapter serializerAdapter
     ) {
         this.registry = registry;
         this.configuration = configuration;
+        this.serializerAdapter = serializerAdapter;
     }
 
     @Override
@@ -40,17 +54,24 @@ public final class ChatFormatLoader implements Loader {
 
     private void loadFormat(final @NotNull String id, final @NotNull FormatConfiguration.ChatFormat chatFormatConfiguration) {
         final Map<String, ChatElement> elements = new LinkedHashMap<>(chatFormatConfiguration.elements().size());
+        final List<ChatElementTemplate> templates = new ArrayList<>(chatFormatConfiguration.elements().size());
+        final PlaceholderTable.Builder placeholders = PlaceholderResolver.isPlaceholderApiEnabled()
+                ? PlaceholderTable.builder()
+                : null;
 
         chatFormatConfiguration.elements().forEach((elementId, elementConfig) -> {
             final ChatElement element = this.createElement(elementConfig);
             elements.put(elementId, element);
+            templates.add(ChatElementTemplate.compile(element, this.serializerAdapter, placeholders));
         });
 
         final ChatFormat chatFormat = new ChatFormat(
                 id,
                 chatFormatConfiguration.permission(),
                 chatFormatConfiguration.priority(),
-                elements
+                elements,
+                List.copyOf(templates),
+                placeholders == null ? PlaceholderTable.empty() : placeholders.build()
         );
 
         this.registry.register(id, chatFormat);
@@ -1,31 +1,38 @@
 package team.bytephoria.bytechat.manager;
 
+import org.bukkit.entity.Player;
 import org.bukkit.permissions.Permissible;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import team.bytephoria.bytechat.api.Prioritizable;
 import team.bytephoria.bytechat.chat.format.ChatFormat;
 import team.bytephoria.bytechat.configuration.ChatConfiguration;
 import team.bytephoria.bytechat.registry.ChatFormatRegistry;
 
-import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Stream;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 public final class ChatManager {
 
-    private static final Comparator<ChatFormat> PRIORITY_COMPARATOR =
-            Comparator.comparingInt(Prioritizable::priority);
-
     private final ChatFormatRegistry chatFormatRegistry;
     private final ChatConfiguration chatConfiguration;
 
+    /** The format last resolved for each player, until it is invalidated or expires. */
+    private final Map<UUID, Selected> selectedFormats = new ConcurrentHashMap<>();
+
+    /** How long a resolved format is used before it is resolved again, or 0 to never expire. */
+    private final long timeToLiveNanos;
+
     public ChatManager(
             final @NotNull ChatFormatRegistry chatFormatRegistry,
             final @NotNull ChatConfiguration chatConfiguration
     ) {
         this.chatFormatRegistry = chatFormatRegistry;
         this.chatConfiguration = chatConfiguration;
+        this.timeToLiveNanos = TimeUnit.SECONDS.toNanos(Math.max(chatConfiguration.settings().permissionCacheSeconds(), 0L));
     }
 
     /**
@@ -37,58 +44,92 @@ public final class ChatManager {
     }
 
     /**
-     * Resolves the most appropriate chat format for the given permissible.
-     * <p>Fast path: if only one format exists, it performs a direct permission check.</p>
-     * <p>Otherwise, it finds all accessible formats, selects the one with the highest
-     * priority, and falls back to the default format if none apply.</p>
+     * Returns the chat format of the given player, resolving it with
+     * {@link #search(Permissible)} only if it is not already cached.
+     * <p>
+     * The cached format is kept until {@link #invalidate(UUID)} is called for the
+     * player, which happens when they join or quit and whenever the
+     * {@link team.bytephoria.bytechat.api.hook.InvalidationHook} is fired, or
+     * until it is older than {@code settings.permission-cache-seconds}, for
+     * permission changes nobody reported. A reload replaces the manager and
+     * therefore the whole cache.
      *
-     * @param permissible the permissible entity (usually a Player)
+     * @param player the player sending a message
      * @return the resolved chat format, or {@code null} if none are applicable
      */
-    public @Nullable ChatFormat search(final @NotNull Permissible permissible) {
-        // Fast path: only one format
-        if (this.chatFormatRegistry.size() == 1) {
-            final ChatFormat singleFormat = this.chatFormatRegistry.all().values().iterator().next();
-            final String permission = singleFormat.permission();
+    public @Nullable ChatFormat cachedSearch(final @NotNull Player player) {
+        final Selected cached = this.selectedFormats.get(player.getUniqueId());
+        if (cached != null && this.isFresh(cached)) {
+            return cached.format();
+        }
 
-            if (permission == null || permission.isEmpty() || permissible.hasPermission(permission)) {
-                return singleFormat;
+        // Resolving inside compute keeps a concurrent invalidation from
+        // being overwritten by a format computed from outdated permissions.
+        final Selected selected = this.selectedFormats.compute(player.getUniqueId(), (uuid, current) -> {
+            if (current != null && this.isFresh(current)) {
+                return current;
             }
 
-            final String defaultFormatId = this.chatConfiguration.chat().defaultFormat();
-            return defaultFormatId.equalsIgnoreCase(singleFormat.id()) ? singleFormat : null;
-        }
+            final ChatFormat format = this.search(player);
+            return format == null ? null : new Selected(format, System.nanoTime());
+        });
+        return selected == null ? null : selected.format();
+    }
 
-        // Normal path
-        return this.resolveBestFor(permissible)
-                .or(this::defaultChatFormat)
-                .orElse(null);
+    /**
+     * Drops the cached format of the given player.
+     */
+    public void invalidate(final @NotNull UUID uuid) {
+        this.selectedFormats.remove(uuid);
     }
 
     /**
-     * Returns a sequential Stream of all formats the permissible can use.
-     * This stream is read-only and should not be reused once consumed.
+     * Drops the cached format of every player.
      */
-    public @NotNull Stream<ChatFormat> matchingFormats(final @NotNull Permissible permissible) {
-        return this.chatFormatRegistry.all().values().stream()
-                .filter(format -> {
-                    final String permission = format.permission();
-                    return permission == null || permission.isEmpty() || permissible.hasPermission(permission);
-                });
+    public void invalidateAll() {
+        this.selectedFormats.clear();
     }
 
     /**
-     * Returns the format with the highest priority from the provided stream.
+     * Resolves the most appropriate chat format for the given permissible.
+     * <p>Returns the highest priority format the permissible can use, and falls
+     * back to the default format if none apply.</p>
+     *
+     * @param permissible the permissible entity (usually a Player)
+     * @return the resolved chat format, or {@code null} if none are applicable
      */
-    public @NotNull Optional<ChatFormat> highestPriority(final @NotNull Stream<ChatFormat> formats) {
-        return formats.max(PRIORITY_COMPARATOR);
+    public @Nullable ChatFormat search(final @NotNull Permissible permissible) {
+        return this.resolveBestFor(permissible)
+                .or(this::defaultChatFormat)
+                .orElse(null);
     }
 
     /**
-     * Finds all accessible formats for the permissible and returns the one
-     * with the highest priority. Does not apply any fallback.
+     * Returns the format with the highest priority the permissible can use.
+     * Does not apply any fallback.
+     * <p>
+     * Formats are checked in descending priority order, so the first one whose
+     * permission matches is the result. A format without a permission matches
+     * everyone and ends the scan, which makes it a terminal fallback for every
+     * format ranked below it.
      */
     public @NotNull Optional<ChatFormat> resolveBestFor(final @NotNull Permissible permissible) {
-        return this.highestPriority(this.matchingFormats(permissible));
+        final List<ChatFormat> formats = this.chatFormatRegistry.formatsByPriority();
+        for (int i = 0; i < formats.size(); i++) {
+            final ChatFormat format = formats.get(i);
+            final String permission = format.permission();
+            if (permission == null || permission.isEmpty() || permissible.hasPermission(permission)) {
+                return Optional.of(format);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private boolean isFresh(final @NotNull Selected selected) {
+        return this.timeToLiveNanos == 0L || System.nanoTime() - selected.resolvedAt() < this.timeToLiveNanos;
+    }
+
+    private record Selected(@NotNull ChatFormat format, long resolvedAt) {
     }
 }
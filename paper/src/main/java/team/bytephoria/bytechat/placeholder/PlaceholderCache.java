@@ -0,0 +1,410 @@
+package team.bytephoria.bytechat.placeholder;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.configuration.ChatConfiguration;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Caches resolved PlaceholderAPI values per player and placeholder.
+ * <p>
+ * Each value is reused until its TTL expires. The TTL is taken from the
+ * configured overrides, first by full identifier and then by expansion name,
+ * and falls back to the default TTL. A hit on a value older than the
+ * refresh-ahead threshold schedules an asynchronous reload, so values that
+ * are used constantly are renewed before they ever expire on the chat thread.
+ * <p>
+ * The cache is bounded: once it holds more than the configured number of
+ * values, expired values and then the oldest ones are evicted.
+ */
+public final class PlaceholderCache {
+
+    /** Fraction of {@code max-entries} the cache is trimmed down to when it overflows. */
+    private static final double TRIM_RATIO = 0.9D;
+
+    /** Joins the tokens of a batched lookup; PlaceholderAPI never treats it as part of a token. */
+    private static final char BATCH_SEPARATOR = '\u0000';
+
+    private final Plugin plugin;
+    private final ChatConfiguration.Placeholders.Cache configuration;
+    private final BiFunction<Player, String, String> loader;
+
+    /** The configured TTL overrides, with lower-cased keys. */
+    private final Map<String, Long> ttlOverrides;
+
+    private final Map<UUID, Map<String, Entry>> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> ttlByToken = new ConcurrentHashMap<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param plugin        the plugin owning the asynchronous refresh tasks
+     * @param configuration the cache settings
+     * @param loader        resolves a placeholder token for a player when it is not cached
+     */
+    public PlaceholderCache(
+            final @NotNull Plugin plugin,
+            final @NotNull ChatConfiguration.Placeholders.Cache configuration,
+            final @NotNull BiFunction<Player, String, String> loader
+    ) {
+        this.plugin = plugin;
+        this.configuration = configuration;
+        this.loader = loader;
+
+        this.ttlOverrides = new HashMap<>();
+        configuration.ttlOverrides().forEach((identifier, millis) -> this.ttlOverrides.put(identifier.toLowerCase(Locale.ROOT), millis));
+    }
+
+    /**
+     * Returns the value of a placeholder token for the given player, loading
+     * it if it is not cached or has expired.
+     *
+     * @param player the player whose placeholder is resolved
+     * @param token  the full placeholder token, including the surrounding {@code %}
+     * @return the resolved value
+     */
+    public @NotNull String resolve(final @NotNull Player player, final @NotNull String token) {
+        final long now = System.nanoTime();
+        final Map<String, Entry> playerEntries = this.playerEntries(player);
+
+        final String cached = this.lookup(player, playerEntries, token, now);
+        if (cached != null) {
+            return cached;
+        }
+
+        this.misses.increment();
+        final String value = this.loader.apply(player, token);
+        this.store(playerEntries, token, value, now);
+        return value;
+    }
+
+    /**
+     * Returns the values of several placeholder tokens for the given player.
+     * <p>
+     * Cached values are reused, and every token that has to be loaded is resolved
+     * through a single call to the loader, with the tokens joined by a separator
+     * that PlaceholderAPI leaves untouched.
+     *
+     * @param player the player whose placeholders are resolved
+     * @param tokens the distinct placeholder tokens to resolve
+     * @return the resolved values, in the order of {@code tokens}
+     */
+    public @NotNull String @NotNull [] resolveAll(final @NotNull Player player, final @NotNull List<String> tokens) {
+        final int size = tokens.size();
+        final String[] values = new String[size];
+        if (size == 0) {
+            return values;
+        }
+
+        final long now = System.nanoTime();
+        final Map<String, Entry> playerEntries = this.playerEntries(player);
+
+        final int[] missing = new int[size];
+        int missingCount = 0;
+        for (int i = 0; i < size; i++) {
+            values[i] = this.lookup(player, playerEntries, tokens.get(i), now);
+            if (values[i] == null) {
+                missing[missingCount++] = i;
+            }
+        }
+
+        if (missingCount == 0) {
+            return values;
+        }
+
+        this.misses.add(missingCount);
+        if (missingCount == 1 || !this.loadBatch(player, tokens, values, missing, missingCount)) {
+            for (int i = 0; i < missingCount; i++) {
+                values[missing[i]] = this.loader.apply(player, tokens.get(missing[i]));
+            }
+        }
+
+        for (int i = 0; i < missingCount; i++) {
+            this.store(playerEntries, tokens.get(missing[i]), values[missing[i]], now);
+        }
+
+        return values;
+    }
+
+    /**
+     * Loads every missing value with a single call to the loader.
+     *
+     * @return {@code false} if the result could not be split back into one value
+     *         per token, in which case {@code values} is left untouched
+     */
+    private boolean loadBatch(
+            final @NotNull Player player,
+            final @NotNull List<String> tokens,
+            final @Nullable String @NotNull [] values,
+            final int @NotNull [] missing,
+            final int missingCount
+    ) {
+        final StringBuilder batch = new StringBuilder(missingCount * 16);
+        for (int i = 0; i < missingCount; i++) {
+            if (i > 0) {
+                batch.append(BATCH_SEPARATOR);
+            }
+            batch.append(tokens.get(missing[i]));
+        }
+
+        final String resolved = this.loader.apply(player, batch.toString());
+        final String[] parts = new String[missingCount];
+        int start = 0;
+        for (int i = 0; i < missingCount - 1; i++) {
+            final int separator = resolved.indexOf(BATCH_SEPARATOR, start);
+            if (separator == -1) {
+                return false;
+            }
+
+            parts[i] = resolved.substring(start, separator);
+            start = separator + 1;
+        }
+
+        if (resolved.indexOf(BATCH_SEPARATOR, start) != -1) {
+            return false;
+        }
+        parts[missingCount - 1] = resolved.substring(start);
+
+        for (int i = 0; i < missingCount; i++) {
+            values[missing[i]] = parts[i];
+        }
+        return true;
+    }
+
+    private @NotNull Map<String, Entry> playerEntries(final @NotNull Player player) {
+        return this.entries.computeIfAbsent(player.getUniqueId(), uuid -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Returns the cached value of a token, scheduling a refresh-ahead reload if it
+     * is getting old, or {@code null} if the value has to be loaded.
+     */
+    private @Nullable String lookup(
+            final @NotNull Player player,
+            final @NotNull Map<String, Entry> playerEntries,
+            final @NotNull String token,
+            final long now
+    ) {
+        if (!this.configuration.enabled()) {
+            return null;
+        }
+
+        final Entry entry = playerEntries.get(token);
+        if (entry == null) {
+            return null;
+        }
+
+        final long ttl = this.ttl(token);
+        final long age = now - entry.loadedAt;
+        if (age >= ttl) {
+            return null;
+        }
+
+        this.hits.increment();
+        if (age >= (long) (ttl * this.configuration.refreshAhead()) && entry.refreshing.compareAndSet(false, true)) {
+            this.scheduleRefresh(player, token, entry);
+        }
+        return entry.value;
+    }
+
+    private void store(
+            final @NotNull Map<String, Entry> playerEntries,
+            final @NotNull String token,
+            final @NotNull String value,
+            final long now
+    ) {
+        if (!this.configuration.enabled() || this.ttl(token) <= 0L) {
+            return;
+        }
+
+        final Entry entry = playerEntries.get(token);
+        if (entry != null) {
+            entry.update(value, now);
+            return;
+        }
+
+        if (playerEntries.putIfAbsent(token, new Entry(value, now)) == null
+                && this.size.incrementAndGet() > this.configuration.maxEntries()) {
+            this.sweep();
+        }
+    }
+
+    /**
+     * Drops every cached value of the given player.
+     */
+    public void invalidate(final @NotNull UUID uuid) {
+        final Map<String, Entry> removed = this.entries.remove(uuid);
+        if (removed != null) {
+            this.size.addAndGet(-removed.size());
+        }
+    }
+
+    /**
+     * Drops every cached value.
+     */
+    public void clear() {
+        this.entries.clear();
+        this.ttlByToken.clear();
+        this.size.set(0);
+    }
+
+    public @NotNull Stats stats() {
+        return new Stats(
+                this.hits.sum(),
+                this.misses.sum(),
+                this.refreshes.sum(),
+                this.evictions.sum(),
+                this.size.get()
+        );
+    }
+
+    private void scheduleRefresh(final @NotNull Player player, final @NotNull String token, final @NotNull Entry entry) {
+        Bukkit.getAsyncScheduler().runNow(this.plugin, task -> {
+            try {
+                if (player.isOnline()) {
+                    entry.update(this.loader.apply(player, token), System.nanoTime());
+                    this.refreshes.increment();
+                }
+            } finally {
+                entry.refreshing.set(false);
+            }
+        });
+    }
+
+    /**
+     * Removes expired values, then the oldest values until the cache is back
+     * below {@link #TRIM_RATIO} of its capacity. Only one thread sweeps at a time;
+     * concurrent overflows simply skip it.
+     */
+    private void sweep() {
+        if (!this.sweeping.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            final long now = System.nanoTime();
+            final List<Candidate> candidates = new ArrayList<>(this.size.get());
+
+            int remaining = 0;
+            final Iterator<Map.Entry<UUID, Map<String, Entry>>> players = this.entries.entrySet().iterator();
+            while (players.hasNext()) {
+                final Map<String, Entry> playerEntries = players.next().getValue();
+                final Iterator<Map.Entry<String, Entry>> iterator = playerEntries.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    final Map.Entry<String, Entry> cached = iterator.next();
+                    if (now - cached.getValue().loadedAt >= this.ttl(cached.getKey())) {
+                        iterator.remove();
+                        this.evictions.increment();
+                        continue;
+                    }
+
+                    candidates.add(new Candidate(playerEntries, cached.getKey(), cached.getValue().loadedAt));
+                    remaining++;
+                }
+
+                if (playerEntries.isEmpty()) {
+                    players.remove();
+                }
+            }
+
+            final int target = (int) (this.configuration.maxEntries() * TRIM_RATIO);
+            if (remaining > target) {
+                candidates.sort(Comparator.comparingLong(Candidate::loadedAt));
+                for (int i = 0; i < candidates.size() && remaining > target; i++) {
+                    final Candidate candidate = candidates.get(i);
+                    if (candidate.entries().remove(candidate.token()) != null) {
+                        this.evictions.increment();
+                        remaining--;
+                    }
+                }
+            }
+
+            this.size.set(remaining);
+        } finally {
+            this.sweeping.set(false);
+        }
+    }
+
+    /**
+     * Returns the TTL of a token in nanoseconds, computed once per distinct token.
+     */
+    private long ttl(final @NotNull String token) {
+        return this.ttlByToken.computeIfAbsent(token, this::computeTtl);
+    }
+
+    private long computeTtl(final @NotNull String token) {
+        final Map<String, Long> overrides = this.ttlOverrides;
+        final String identifier = token.substring(1, token.length() - 1).toLowerCase(Locale.ROOT);
+
+        Long millis = overrides.get(identifier);
+        if (millis == null) {
+            final int separator = identifier.indexOf('_');
+            if (separator != -1) {
+                millis = overrides.get(identifier.substring(0, separator));
+            }
+        }
+
+        return TimeUnit.MILLISECONDS.toNanos(millis != null ? millis : this.configuration.defaultTtlMillis());
+    }
+
+    private static final class Entry {
+
+        private volatile String value;
+        private volatile long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(final @NotNull String value, final long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+
+        private void update(final @NotNull String value, final long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private record Candidate(@NotNull Map<String, Entry> entries, @NotNull String token, long loadedAt) {
+    }
+
+    /**
+     * A point-in-time view of the cache counters.
+     *
+     * @param hits      lookups served from the cache
+     * @param misses    lookups that had to resolve the placeholder
+     * @param refreshes asynchronous refresh-ahead reloads
+     * @param evictions values removed because they expired or the cache was full
+     * @param size      the approximate number of cached values
+     */
+    public record Stats(long hits, long misses, long refreshes, long evictions, int size) {
+
+        public double hitRatio() {
+            final long total = this.hits + this.misses;
+            return total == 0L ? 0.0D : (double) this.hits / total;
+        }
+    }
+
+}
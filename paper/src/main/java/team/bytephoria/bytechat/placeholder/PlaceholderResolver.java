@@ -1,13 +1,17 @@
 package team.bytephoria.bytechat.placeholder;
 
 import me.clip.placeholderapi.PlaceholderAPI;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.chat.template.PlaceholderTable;
+import team.bytephoria.bytechat.chat.template.SlotResolver;
+import team.bytephoria.bytechat.chat.template.TemplateSlot;
 import team.bytephoria.bytechat.util.exception.NonInstantiableClassException;
 
-import java.util.function.Function;
-
 /**
  * Handles placeholder replacement for chat elements.
  * <p>
@@ -39,37 +43,92 @@ public final class PlaceholderResolver {
     }
 
     /**
-     * Creates a placeholder replacement function for a specific player and message context.
+     * Returns whether PlaceholderAPI is present and enabled on the server.
+     */
+    public static boolean isPlaceholderApiEnabled() {
+        return PAPI_ENABLED;
+    }
+
+    /**
+     * Creates a slot resolver for compiled format templates.
      * <p>
-     * The returned {@link Function} takes a chat format string and replaces:
+     * Resolves one pre-located slot at a time:
      * <ul>
-     *     <li>PAPI placeholders (if PlaceholderAPI is available)</li>
-     *     <li>Internal placeholders:
-     *         <ul>
-     *             <li><code>{player}</code> → player's name</li>
-     *             <li><code>{message}</code> → player's chat message</li>
-     *         </ul>
-     *     </li>
+     *     <li><code>{player}</code> → player's name</li>
+     *     <li><code>{message}</code> → plain text of the player's rendered message</li>
+     *     <li>PAPI tokens → their PlaceholderAPI value</li>
      * </ul>
+     * Every PAPI token of the format is resolved up front in a single batch
+     * through the given {@link PlaceholderCache}, and slots then read their value
+     * by index. Formats that reference no PAPI tokens never reach PlaceholderAPI.
      *
-     * @param player  the player whose placeholders will be resolved
-     * @param message the raw message sent by the player
-     * @return a function that replaces placeholders in any given input string
+     * @param player       the player whose placeholders will be resolved
+     * @param message      the sanitized message component of the player
+     * @param placeholders the PAPI tokens referenced by the format
+     * @param cache        the cache of resolved PlaceholderAPI values
+     * @return a resolver for the slots of a compiled template
      */
-    public static @NotNull Function<String, String> create(
+    public static @NotNull SlotResolver slotResolver(
             final @NotNull Player player,
-            final @NotNull String message
+            final @NotNull Component message,
+            final @NotNull PlaceholderTable placeholders,
+            final @NotNull PlaceholderCache cache
     ) {
-        return input -> {
-            // Apply PlaceholderAPI only to the format string (safe, server-controlled)
-            final String inputParsed = PAPI_ENABLED
-                    ? PlaceholderAPI.setPlaceholders(player, input)
-                    : input;
+        final String[] values = PAPI_ENABLED && !placeholders.isEmpty()
+                ? cache.resolveAll(player, placeholders.tokens())
+                : null;
+
+        return new FormatSlotResolver(player, message, values);
+    }
+
+    /**
+     * Replaces the PlaceholderAPI placeholders of the given input, or returns
+     * it unchanged if PlaceholderAPI is not available.
+     *
+     * @param player the player whose placeholders will be resolved
+     * @param input  the server-controlled input
+     * @return the input with its placeholders replaced
+     */
+    public static @NotNull String setPlaceholders(final @NotNull Player player, final @NotNull String input) {
+        return PAPI_ENABLED ? PlaceholderAPI.setPlaceholders(player, input) : input;
+    }
+
+    /**
+     * Resolves the slots of one message. The plain text of the message is only
+     * serialized if a {@code {message}} slot is actually rendered.
+     */
+    private static final class FormatSlotResolver implements SlotResolver {
+
+        private final Player player;
+        private final Component message;
+        private final @Nullable String @Nullable [] placeholderValues;
+
+        private String plainMessage;
+
+        private FormatSlotResolver(
+                final @NotNull Player player,
+                final @NotNull Component message,
+                final @Nullable String @Nullable [] placeholderValues
+        ) {
+            this.player = player;
+            this.message = message;
+            this.placeholderValues = placeholderValues;
+        }
 
-            // Replace internal placeholders with player-specific data
-            return inputParsed
-                    .replace("{player}", player.getName())
-                    .replace("{message}", message);
-        };
+        @Override
+        public @NotNull String resolve(final @NotNull TemplateSlot slot) {
+            return switch (slot.type()) {
+                case PLAYER -> this.player.getName();
+                case MESSAGE -> {
+                    if (this.plainMessage == null) {
+                        this.plainMessage = PlainTextComponentSerializer.plainText().serialize(this.message);
+                    }
+                    yield this.plainMessage;
+                }
+                case PLACEHOLDER -> this.placeholderValues != null && slot.placeholderIndex() >= 0
+                        ? this.placeholderValues[slot.placeholderIndex()]
+                        : slot.token();
+            };
+        }
     }
 }
@@ -0,0 +1,151 @@
+package team.bytephoria.bytechat.player;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the online players grouped into the audiences used by group mentions:
+ * every player, the players of each world, and the holders of each tracked
+ * permission.
+ * <p>
+ * The sets are updated incrementally as players join, quit, change worlds or
+ * have their permissions refreshed, so resolving an audience never iterates
+ * the online players. Updates are serialized, while the returned sets are
+ * concurrent and can be read from any thread.
+ */
+public final class AudienceIndex {
+
+    private final Set<String> trackedPermissions;
+
+    private final Set<Player> everyone = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Set<Player>> playersByWorld = new ConcurrentHashMap<>();
+    private final Map<UUID, UUID> worldByPlayer = new ConcurrentHashMap<>();
+    private final Map<String, Set<Player>> playersByPermission = new ConcurrentHashMap<>();
+
+    /**
+     * @param trackedPermissions the permissions whose holders are tracked
+     */
+    public AudienceIndex(final @NotNull Collection<String> trackedPermissions) {
+        this.trackedPermissions = Set.copyOf(trackedPermissions);
+        for (final String permission : this.trackedPermissions) {
+            this.playersByPermission.put(permission, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    /**
+     * Replaces the indexed players with the given ones.
+     */
+    public synchronized void reset(final @NotNull Collection<? extends Player> onlinePlayers) {
+        this.everyone.clear();
+        this.playersByWorld.clear();
+        this.worldByPlayer.clear();
+        this.playersByPermission.values().forEach(Set::clear);
+
+        for (final Player player : onlinePlayers) {
+            this.add(player);
+        }
+    }
+
+    public synchronized void add(final @NotNull Player player) {
+        this.everyone.add(player);
+        this.moveToWorld(player, player.getWorld().getUID());
+        this.refreshPermissions(player);
+    }
+
+    public synchronized void remove(final @NotNull Player player) {
+        this.everyone.remove(player);
+
+        final UUID world = this.worldByPlayer.remove(player.getUniqueId());
+        if (world != null) {
+            this.removeFromWorld(player, world);
+        }
+
+        for (final Set<Player> holders : this.playersByPermission.values()) {
+            holders.remove(player);
+        }
+    }
+
+    /**
+     * Moves the player to the audience of the world they are currently in.
+     */
+    public synchronized void changeWorld(final @NotNull Player player) {
+        if (this.everyone.contains(player)) {
+            this.moveToWorld(player, player.getWorld().getUID());
+        }
+    }
+
+    /**
+     * Rechecks the tracked permissions of the player.
+     */
+    public synchronized void refreshPermissions(final @NotNull Player player) {
+        if (!this.everyone.contains(player)) {
+            return;
+        }
+
+        for (final String permission : this.trackedPermissions) {
+            final Set<Player> holders = this.playersByPermission.get(permission);
+            if (player.hasPermission(permission)) {
+                holders.add(player);
+            } else {
+                holders.remove(player);
+            }
+        }
+    }
+
+    /**
+     * Rechecks the tracked permissions of every indexed player.
+     */
+    public synchronized void refreshAllPermissions() {
+        for (final Player player : this.everyone) {
+            this.refreshPermissions(player);
+        }
+    }
+
+    /**
+     * Returns every online player.
+     */
+    public @NotNull Set<Player> everyone() {
+        return Collections.unmodifiableSet(this.everyone);
+    }
+
+    /**
+     * Returns the players in the same world as the given player.
+     */
+    public @NotNull Set<Player> worldOf(final @NotNull Player player) {
+        final UUID world = this.worldByPlayer.get(player.getUniqueId());
+        final Set<Player> players = world == null ? null : this.playersByWorld.get(world);
+        return players == null ? Set.of() : Collections.unmodifiableSet(players);
+    }
+
+    /**
+     * Returns the players holding the given tracked permission.
+     */
+    public @NotNull Set<Player> withPermission(final @NotNull String permission) {
+        final Set<Player> holders = this.playersByPermission.get(permission);
+        return holders == null ? Set.of() : Collections.unmodifiableSet(holders);
+    }
+
+    private void moveToWorld(final @NotNull Player player, final @NotNull UUID world) {
+        final UUID previous = this.worldByPlayer.put(player.getUniqueId(), world);
+        if (previous != null && !previous.equals(world)) {
+            this.removeFromWorld(player, previous);
+        }
+
+        this.playersByWorld.computeIfAbsent(world, uuid -> ConcurrentHashMap.newKeySet()).add(player);
+    }
+
+    private void removeFromWorld(final @NotNull Player player, final @NotNull UUID world) {
+        final Set<Player> players = this.playersByWorld.get(world);
+        if (players != null) {
+            players.remove(player);
+        }
+    }
+
+}
@@ -0,0 +1,215 @@
+package team.bytephoria.bytechat.player;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * An immutable, case-insensitive prefix trie of player names.
+ * <p>
+ * Each node keeps the players whose folded name ends at it and its children
+ * sorted by character, so walking the trie depth-first lists the players in
+ * name order. Completing a prefix walks at most one node per typed character
+ * and then only visits the nodes it returns or filters out players from.
+ * <p>
+ * A trie is never modified: {@link #with(Player)} and {@link #without(Player)}
+ * copy the nodes on the path of a single name and share every other node with
+ * the previous trie, so a join or quit costs the length of the name and not
+ * the number of online players. {@link PlayerNameIndex} publishes the result
+ * through a volatile field.
+ */
+final class NamePrefixTrie {
+
+    static final NamePrefixTrie EMPTY = new NamePrefixTrie(Node.EMPTY);
+
+    private final Node root;
+
+    private NamePrefixTrie(final @NotNull Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns a trie that also contains the given player.
+     */
+    @NotNull NamePrefixTrie with(final @NotNull Player player) {
+        return new NamePrefixTrie(this.root.with(player.getName(), 0, player));
+    }
+
+    /**
+     * Returns a trie without the given player, or this trie if it does not
+     * contain it.
+     */
+    @NotNull NamePrefixTrie without(final @NotNull Player player) {
+        final Node root = this.root.without(player.getName(), 0, player);
+        if (root == this.root) {
+            return this;
+        }
+        return root == null ? EMPTY : new NamePrefixTrie(root);
+    }
+
+    /**
+     * Returns the players whose name starts with the given prefix, ignoring case,
+     * in name order.
+     *
+     * @param prefix the typed prefix
+     * @param limit  the maximum number of players to return
+     * @param filter the players that may be returned; the limit only counts those
+     */
+    @NotNull List<Player> complete(
+            final @NotNull CharSequence prefix,
+            final int limit,
+            final @NotNull Predicate<? super Player> filter
+    ) {
+        Node node = this.root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(PlayerNameIndex.fold(prefix.charAt(i)));
+        }
+
+        if (node == null || limit <= 0) {
+            return List.of();
+        }
+
+        final List<Player> result = new ArrayList<>(Math.min(limit, 16));
+        node.collect(result, limit, filter);
+        return result;
+    }
+
+    private static final class Node {
+
+        private static final Player[] NO_PLAYERS = new Player[0];
+        private static final Node EMPTY = new Node(NO_PLAYERS, new char[0], new Node[0]);
+
+        /** The players whose folded name ends at this node. */
+        private final Player[] players;
+
+        /** The next characters, sorted, parallel to {@link #children}. */
+        private final char[] keys;
+        private final Node[] children;
+
+        private Node(final @NotNull Player @NotNull [] players, final char @NotNull [] keys, final @NotNull Node @NotNull [] children) {
+            this.players = players;
+            this.keys = keys;
+            this.children = children;
+        }
+
+        private @Nullable Node child(final char key) {
+            final int index = Arrays.binarySearch(this.keys, key);
+            return index < 0 ? null : this.children[index];
+        }
+
+        private void collect(
+                final @NotNull List<Player> result,
+                final int limit,
+                final @NotNull Predicate<? super Player> filter
+        ) {
+            for (final Player player : this.players) {
+                if (result.size() == limit) {
+                    return;
+                }
+                if (filter.test(player)) {
+                    result.add(player);
+                }
+            }
+
+            for (final Node child : this.children) {
+                if (result.size() == limit) {
+                    return;
+                }
+                child.collect(result, limit, filter);
+            }
+        }
+
+        /**
+         * Returns a copy of this node with the player added below it, where
+         * {@code depth} characters of the name are already matched.
+         */
+        private @NotNull Node with(final @NotNull String name, final int depth, final @NotNull Player player) {
+            if (depth == name.length()) {
+                final Player[] players = Arrays.copyOf(this.players, this.players.length + 1);
+                players[this.players.length] = player;
+                return new Node(players, this.keys, this.children);
+            }
+
+            final char key = PlayerNameIndex.fold(name.charAt(depth));
+            final int index = Arrays.binarySearch(this.keys, key);
+            if (index >= 0) {
+                final Node[] children = this.children.clone();
+                children[index] = children[index].with(name, depth + 1, player);
+                return new Node(this.players, this.keys, children);
+            }
+
+            final int insertion = -index - 1;
+            final char[] keys = new char[this.keys.length + 1];
+            final Node[] children = new Node[this.children.length + 1];
+            System.arraycopy(this.keys, 0, keys, 0, insertion);
+            System.arraycopy(this.children, 0, children, 0, insertion);
+            keys[insertion] = key;
+            children[insertion] = EMPTY.with(name, depth + 1, player);
+            System.arraycopy(this.keys, insertion, keys, insertion + 1, this.keys.length - insertion);
+            System.arraycopy(this.children, insertion, children, insertion + 1, this.children.length - insertion);
+            return new Node(this.players, keys, children);
+        }
+
+        /**
+         * Returns a copy of this node with the player removed from below it,
+         * this node if the player is not there, or {@code null} if the copy
+         * would be empty.
+         */
+        private @Nullable Node without(final @NotNull String name, final int depth, final @NotNull Player player) {
+            if (depth == name.length()) {
+                final int index = indexOf(this.players, player);
+                if (index == -1) {
+                    return this;
+                }
+
+                final Player[] players = this.players.length == 1 ? NO_PLAYERS : new Player[this.players.length - 1];
+                System.arraycopy(this.players, 0, players, 0, index);
+                System.arraycopy(this.players, index + 1, players, index, players.length - index);
+                return players.length == 0 && this.keys.length == 0 ? null : new Node(players, this.keys, this.children);
+            }
+
+            final int index = Arrays.binarySearch(this.keys, PlayerNameIndex.fold(name.charAt(depth)));
+            if (index < 0) {
+                return this;
+            }
+
+            final Node child = this.children[index].without(name, depth + 1, player);
+            if (child == this.children[index]) {
+                return this;
+            }
+
+            if (child != null) {
+                final Node[] children = this.children.clone();
+                children[index] = child;
+                return new Node(this.players, this.keys, children);
+            }
+
+            if (this.players.length == 0 && this.keys.length == 1) {
+                return null;
+            }
+
+            final char[] keys = new char[this.keys.length - 1];
+            final Node[] children = new Node[this.children.length - 1];
+            System.arraycopy(this.keys, 0, keys, 0, index);
+            System.arraycopy(this.children, 0, children, 0, index);
+            System.arraycopy(this.keys, index + 1, keys, index, keys.length - index);
+            System.arraycopy(this.children, index + 1, children, index, children.length - index);
+            return new Node(this.players, keys, children);
+        }
+
+        private static int indexOf(final @NotNull Player @NotNull [] players, final @NotNull Player player) {
+            for (int i = 0; i < players.length; i++) {
+                if (players[i] == player) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+}
@@ -0,0 +1,241 @@
+package team.bytephoria.bytechat.player;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A case-insensitive index of the online players by name.
+ * <p>
+ * The index is an open-addressing hash table whose slots are updated one at a
+ * time: a join writes the slot of the new name and a quit replaces it with a
+ * tombstone, so neither hashes the other players. The table is only rebuilt,
+ * and swapped in through a volatile write, once live entries and tombstones
+ * fill half of it. Lookups never lock, and they hash and compare the requested
+ * characters in place, so resolving a name inside a message does not allocate
+ * a substring.
+ * <p>
+ * Name completion is served by a {@link NamePrefixTrie} of the same players,
+ * which joins and quits update along the path of a single name.
+ * <p>
+ * Minecraft names only contain ASCII letters, digits and underscores, so case
+ * folding is limited to ASCII letters.
+ */
+public final class PlayerNameIndex {
+
+    /** The players currently indexed, keyed by id. Guarded by {@code this}. */
+    private final Map<UUID, Player> players = new HashMap<>();
+
+    private volatile Table table = Table.empty();
+    private volatile NamePrefixTrie trie = NamePrefixTrie.EMPTY;
+
+    /**
+     * Replaces the indexed players with the given ones.
+     */
+    public synchronized void reset(final @NotNull Collection<? extends Player> onlinePlayers) {
+        this.players.clear();
+        NamePrefixTrie trie = NamePrefixTrie.EMPTY;
+        for (final Player player : onlinePlayers) {
+            this.players.put(player.getUniqueId(), player);
+            trie = trie.with(player);
+        }
+        this.table = Table.build(this.players.values());
+        this.trie = trie;
+    }
+
+    public synchronized void add(final @NotNull Player player) {
+        final Player previous = this.players.put(player.getUniqueId(), player);
+        if (previous != null) {
+            this.unindex(previous);
+        }
+
+        if (!this.table.insert(player)) {
+            this.table = Table.build(this.players.values());
+        }
+        this.trie = this.trie.with(player);
+    }
+
+    public synchronized void remove(final @NotNull Player player) {
+        final Player removed = this.players.remove(player.getUniqueId());
+        if (removed != null) {
+            this.unindex(removed);
+        }
+    }
+
+    /**
+     * Returns the indexed players.
+     */
+    public synchronized @NotNull List<Player> players() {
+        return List.copyOf(this.players.values());
+    }
+
+    /**
+     * Finds the online player whose name equals, ignoring case, the characters of
+     * {@code source} between {@code start} (inclusive) and {@code end} (exclusive).
+     *
+     * @return the matching player, or {@code null} if none is online
+     */
+    public @Nullable Player find(final @NotNull CharSequence source, final int start, final int end) {
+        return this.table.find(source, start, end);
+    }
+
+    /**
+     * Finds the online player whose name equals the given name, ignoring case.
+     */
+    public @Nullable Player find(final @NotNull CharSequence name) {
+        return this.find(name, 0, name.length());
+    }
+
+    /**
+     * Returns the online players whose name starts with the given prefix,
+     * ignoring case, in name order.
+     *
+     * @param prefix the typed prefix
+     * @param limit  the maximum number of players to return
+     * @param filter the players that may be returned; the limit only counts those
+     */
+    public @NotNull List<Player> complete(
+            final @NotNull CharSequence prefix,
+            final int limit,
+            final @NotNull Predicate<? super Player> filter
+    ) {
+        return this.trie.complete(prefix, limit, filter);
+    }
+
+    private void unindex(final @NotNull Player player) {
+        this.table.delete(player);
+        this.trie = this.trie.without(player);
+    }
+
+    static char fold(final char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    static int hash(final @NotNull CharSequence source, final int start, final int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + fold(source.charAt(i));
+        }
+        // Spread the high bits, since the table only uses the low ones.
+        return hash ^ (hash >>> 16);
+    }
+
+    private record Entry(@NotNull String name, @Nullable Player player) {
+    }
+
+    /**
+     * A linear-probing table read without locks and written by one thread at a
+     * time, under the lock of the index.
+     */
+    private static final class Table {
+
+        private static final int MIN_CAPACITY = 16;
+
+        /** Marks the slot of a removed player, so later probes carry on past it. */
+        private static final Entry TOMBSTONE = new Entry("", null);
+
+        private final AtomicReferenceArray<Entry> slots;
+        private final int mask;
+
+        /** Slots holding an entry or a tombstone. Guarded by the index. */
+        private int used;
+
+        private Table(final int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        private static @NotNull Table empty() {
+            return new Table(MIN_CAPACITY);
+        }
+
+        /**
+         * Builds a table sized to at most a quarter full, so it takes as many
+         * joins again before the next rebuild.
+         */
+        private static @NotNull Table build(final @NotNull Collection<Player> players) {
+            final int capacity = Math.max(Integer.highestOneBit(Math.max(players.size(), 1) * 8 - 1), MIN_CAPACITY);
+            final Table table = new Table(capacity);
+            for (final Player player : players) {
+                table.insert(player);
+            }
+            return table;
+        }
+
+        /**
+         * Writes the player into the first free slot of its probe sequence.
+         *
+         * @return {@code false} if the table is too full and must be rebuilt
+         */
+        private boolean insert(final @NotNull Player player) {
+            final String name = player.getName();
+            int slot = hash(name, 0, name.length()) & this.mask;
+            Entry entry;
+            while ((entry = this.slots.get(slot)) != null && entry != TOMBSTONE) {
+                slot = (slot + 1) & this.mask;
+            }
+
+            if (entry == null) {
+                if ((this.used + 1) * 2 > this.mask + 1) {
+                    return false;
+                }
+                this.used = this.used + 1;
+            }
+
+            this.slots.set(slot, new Entry(name, player));
+            return true;
+        }
+
+        private void delete(final @NotNull Player player) {
+            final String name = player.getName();
+            int slot = hash(name, 0, name.length()) & this.mask;
+            Entry entry;
+            while ((entry = this.slots.get(slot)) != null) {
+                if (entry.player() == player) {
+                    this.slots.set(slot, TOMBSTONE);
+                    return;
+                }
+                slot = (slot + 1) & this.mask;
+            }
+        }
+
+        private @Nullable Player find(final @NotNull CharSequence source, final int start, final int end) {
+            int slot = hash(source, start, end) & this.mask;
+            Entry entry;
+            while ((entry = this.slots.get(slot)) != null) {
+                if (entry != TOMBSTONE && matches(entry.name(), source, start, end)) {
+                    return entry.player();
+                }
+                slot = (slot + 1) & this.mask;
+            }
+            return null;
+        }
+
+        private static boolean matches(
+                final @NotNull String name,
+                final @NotNull CharSequence source,
+                final int start,
+                final int end
+        ) {
+            if (name.length() != end - start) {
+                return false;
+            }
+
+            for (int i = 0; i < name.length(); i++) {
+                if (fold(name.charAt(i)) != fold(source.charAt(start + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
@@ -1,9 +1,59 @@
 package team.bytephoria.bytechat.registry;
 
+import org.jetbrains.annotations.NotNull;
 import team.bytephoria.bytechat.api.registry.AbstractRegistry;
 import team.bytephoria.bytechat.chat.format.ChatFormat;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Registry of the loaded chat formats.
+ * <p>
+ * Besides the lookup by id, the registry keeps every format in an immutable
+ * list sorted by descending priority, rebuilt whenever the registered formats
+ * change. Formats with equal priority are ordered by id so the selection is
+ * deterministic.
+ */
 public final class ChatFormatRegistry extends AbstractRegistry<String, ChatFormat> {
 
+    private static final Comparator<ChatFormat> DESCENDING_PRIORITY =
+            Comparator.comparingInt(ChatFormat::priority).reversed()
+                    .thenComparing(ChatFormat::id);
+
+    private volatile List<ChatFormat> formatsByPriority = List.of();
+
+    @Override
+    public void register(final String key, final ChatFormat value) {
+        super.register(key, value);
+        this.rebuildIndex();
+    }
+
+    @Override
+    public ChatFormat unregister(final String key) {
+        final ChatFormat removed = super.unregister(key);
+        this.rebuildIndex();
+        return removed;
+    }
+
+    @Override
+    public void clearAll() {
+        super.clearAll();
+        this.rebuildIndex();
+    }
+
+    /**
+     * Returns every registered format, highest priority first.
+     */
+    public @NotNull List<ChatFormat> formatsByPriority() {
+        return this.formatsByPriority;
+    }
+
+    private void rebuildIndex() {
+        final ChatFormat[] formats = this.all().values().toArray(new ChatFormat[0]);
+        Arrays.sort(formats, DESCENDING_PRIORITY);
+        this.formatsByPriority = List.of(formats);
+    }
 
 }
@@ -0,0 +1,263 @@
+package team.bytephoria.bytechat.registry;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import team.bytephoria.bytechat.api.pipeline.ChatContext;
+import team.bytephoria.bytechat.api.pipeline.ChatPipeline;
+import team.bytephoria.bytechat.api.pipeline.ChatStage;
+import team.bytephoria.bytechat.api.registry.AbstractRegistry;
+import team.bytephoria.bytechat.chat.pipeline.TokenBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The chat pipeline, holding the stages registered by other plugins.
+ * <p>
+ * The built-in stages are built with each {@link team.bytephoria.bytechat.PluginRuntime}
+ * and handed to {@link #process(ChatContext, List)} by the renderer, so a
+ * message always runs the stages of the runtime it was rendered with, even
+ * while a reload is being published. A registered stage with the id of a
+ * built-in one replaces it.
+ * <p>
+ * The built-in and registered stages are compiled together into a flat array
+ * ordered by descending priority, then id, and published through a volatile
+ * field, so the chat threads run them without locking or sorting. The array is
+ * compiled again only when the registered stages change or a message brings
+ * the built-in stages of another runtime. Each stage keeps its own call count
+ * and time spent, which survive recompilation as long as a stage with the same
+ * id stays in the pipeline.
+ * <p>
+ * A stage that throws does not stop the message: the tokens it changed are put
+ * back as they were, the failure is counted in its timings and the next stage
+ * runs. Failures are logged at most once a minute per stage, with the number
+ * that occurred since the previous report.
+ */
+public final class PaperChatPipeline
+        extends AbstractRegistry<String, ChatStage<Player, Component>>
+        implements ChatPipeline<Player, Component> {
+
+    private static final Comparator<ChatStage<Player, Component>> DESCENDING_PRIORITY =
+            Comparator.<ChatStage<Player, Component>>comparingInt(ChatStage::priority).reversed()
+                    .thenComparing(ChatStage::id);
+
+    private static final long FAILURE_REPORT_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1L);
+
+    private final Logger logger;
+
+    private volatile Compiled compiled = new Compiled(List.of(), new CompiledStage[0]);
+
+    public PaperChatPipeline(final @NotNull Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public synchronized void register(final String key, final ChatStage<Player, Component> value) {
+        super.register(key, value);
+        this.compile(this.compiled.builtins());
+    }
+
+    @Override
+    public synchronized ChatStage<Player, Component> unregister(final String key) {
+        final ChatStage<Player, Component> removed = super.unregister(key);
+        this.compile(this.compiled.builtins());
+        return removed;
+    }
+
+    @Override
+    public synchronized ChatStage<Player, Component> get(final String key) {
+        return super.get(key);
+    }
+
+    @Override
+    public synchronized boolean contains(final String key) {
+        return super.contains(key);
+    }
+
+    @Override
+    public synchronized Map<String, ChatStage<Player, Component>> all() {
+        return Map.copyOf(super.all());
+    }
+
+    @Override
+    public synchronized void clearAll() {
+        super.clearAll();
+        this.compile(this.compiled.builtins());
+    }
+
+    /**
+     * Runs the stages of the runtime most recently used, along with the
+     * registered ones, over the given message.
+     */
+    @Override
+    public void process(final @NotNull ChatContext<Player, Component> context) {
+        this.run(this.compiled.stages(), context);
+    }
+
+    /**
+     * Runs the given built-in stages, along with the registered ones, over the
+     * given message.
+     *
+     * @param context  the token buffer of the message
+     * @param builtins the built-in stages of the runtime rendering the message,
+     *                 always the same list instance for a given runtime
+     */
+    public void process(
+            final @NotNull ChatContext<Player, Component> context,
+            final @NotNull List<ChatStage<Player, Component>> builtins
+    ) {
+        Compiled compiled = this.compiled;
+        if (compiled.builtins() != builtins) {
+            compiled = this.switchTo(builtins);
+        }
+        this.run(compiled.stages(), context);
+    }
+
+    /**
+     * Runs the stages in order. The changes of a failing stage can only be
+     * undone on a {@link TokenBuffer}; other contexts keep whatever the stage
+     * resolved before it threw.
+     */
+    private void run(
+            final @NotNull CompiledStage @NotNull [] stages,
+            final @NotNull ChatContext<Player, Component> context
+    ) {
+        final TokenBuffer tokenBuffer = context instanceof TokenBuffer buffer ? buffer : null;
+        for (final CompiledStage stage : stages) {
+            final TokenBuffer.Snapshot snapshot = tokenBuffer == null ? null : tokenBuffer.snapshot();
+            final long start = System.nanoTime();
+            try {
+                stage.stage().process(context);
+            } catch (final RuntimeException exception) {
+                if (snapshot != null) {
+                    tokenBuffer.restore(snapshot);
+                }
+                stage.failures().increment();
+                this.report(stage, exception);
+            } finally {
+                stage.calls().increment();
+                stage.nanos().add(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void report(final @NotNull CompiledStage stage, final @NotNull RuntimeException exception) {
+        final long now = System.nanoTime();
+        final long lastReport = stage.lastReport().get();
+        if (lastReport != 0L && now - lastReport < FAILURE_REPORT_INTERVAL_NANOS
+                || !stage.lastReport().compareAndSet(lastReport, now)) {
+            return;
+        }
+
+        final long failures = stage.failures().sum();
+        this.logger.log(
+                Level.WARNING,
+                "Chat stage '" + stage.stage().id() + "' failed and was skipped (" + failures + " failures so far)",
+                exception
+        );
+    }
+
+    /**
+     * Returns the timings of the registered stages, in the order they run.
+     */
+    public @NotNull List<Stats> stats() {
+        final CompiledStage[] stages = this.compiled.stages();
+        final List<Stats> stats = new ArrayList<>(stages.length);
+        for (final CompiledStage stage : stages) {
+            stats.add(new Stats(
+                    stage.stage().id(),
+                    stage.stage().priority(),
+                    stage.calls().sum(),
+                    stage.failures().sum(),
+                    stage.nanos().sum()
+            ));
+        }
+        return List.copyOf(stats);
+    }
+
+    /**
+     * Compiles the given built-in stages unless another thread already did.
+     */
+    private synchronized @NotNull Compiled switchTo(final @NotNull List<ChatStage<Player, Component>> builtins) {
+        final Compiled compiled = this.compiled;
+        return compiled.builtins() == builtins ? compiled : this.compile(builtins);
+    }
+
+    private synchronized @NotNull Compiled compile(final @NotNull List<ChatStage<Player, Component>> builtins) {
+        final Map<String, CompiledStage> previous = new HashMap<>();
+        for (final CompiledStage stage : this.compiled.stages()) {
+            previous.put(stage.stage().id(), stage);
+        }
+
+        final Map<String, ChatStage<Player, Component>> merged = new HashMap<>();
+        for (final ChatStage<Player, Component> builtin : builtins) {
+            merged.put(builtin.id(), builtin);
+        }
+        merged.putAll(super.all());
+
+        @SuppressWarnings("unchecked")
+        final ChatStage<Player, Component>[] stages = merged.values().toArray(new ChatStage[0]);
+        Arrays.sort(stages, DESCENDING_PRIORITY);
+
+        final CompiledStage[] compiled = new CompiledStage[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            final CompiledStage old = previous.get(stages[i].id());
+            compiled[i] = old == null
+                    ? new CompiledStage(stages[i], new LongAdder(), new LongAdder(), new LongAdder(), new AtomicLong())
+                    : new CompiledStage(stages[i], old.calls(), old.failures(), old.nanos(), old.lastReport());
+        }
+
+        final Compiled result = new Compiled(builtins, compiled);
+        this.compiled = result;
+        return result;
+    }
+
+    /**
+     * The stages run for a list of built-in stages, compared by identity.
+     */
+    private record Compiled(
+            @NotNull List<ChatStage<Player, Component>> builtins,
+            @NotNull CompiledStage @NotNull [] stages
+    ) {
+    }
+
+    /**
+     * A stage with its counters. {@code lastReport} holds the time its last
+     * failure was logged, or zero if none was.
+     */
+    private record CompiledStage(
+            @NotNull ChatStage<Player, Component> stage,
+            @NotNull LongAdder calls,
+            @NotNull LongAdder failures,
+            @NotNull LongAdder nanos,
+            @NotNull AtomicLong lastReport
+    ) {
+    }
+
+    /**
+     * A point-in-time view of the timing of a stage.
+     *
+     * @param id         the id of the stage
+     * @param priority   the priority of the stage
+     * @param calls      the messages the stage processed
+     * @param failures   the messages the stage threw on
+     * @param totalNanos the time spent in the stage
+     */
+    public record Stats(@NotNull String id, int priority, long calls, long failures, long totalNanos) {
+
+        public double averageMicros() {
+            return this.calls == 0L ? 0.0D : this.totalNanos / 1_000.0D / this.calls;
+        }
+    }
+
+}
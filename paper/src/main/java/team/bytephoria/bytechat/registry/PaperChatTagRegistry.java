@@ -0,0 +1,139 @@
+package team.bytephoria.bytechat.registry;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.api.registry.AbstractRegistry;
+import team.bytephoria.bytechat.api.tag.ChatTag;
+import team.bytephoria.bytechat.api.tag.ChatTagRegistry;
+import team.bytephoria.bytechat.chat.tag.TagTrie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the chat tags registered by other plugins.
+ * <p>
+ * The built-in tags are built with each runtime's
+ * {@link team.bytephoria.bytechat.service.TagResolverService} and handed to
+ * {@link #match}, so a message always resolves the tags of the runtime it was
+ * rendered with, even while a reload is being published. A registered tag with
+ * the id of a built-in one replaces it.
+ * <p>
+ * The aliases of the built-in and registered tags are compiled together into
+ * an immutable {@link TagTrie} published through a volatile field, so the chat
+ * threads match tags without locking. The trie is compiled again only when the
+ * registered tags change or a message brings the built-in tags of another
+ * runtime. An alias shared by several tags resolves to the one with the highest
+ * priority, then the lowest id.
+ */
+public final class PaperChatTagRegistry
+        extends AbstractRegistry<String, ChatTag<Player, Component>>
+        implements ChatTagRegistry<Player, Component> {
+
+    private static final Comparator<ChatTag<Player, Component>> DESCENDING_PRIORITY =
+            Comparator.<ChatTag<Player, Component>>comparingInt(ChatTag::priority).reversed()
+                    .thenComparing(ChatTag::id);
+
+    private volatile Compiled compiled = new Compiled(List.of(), TagTrie.empty());
+
+    @Override
+    public synchronized void register(final String key, final ChatTag<Player, Component> value) {
+        super.register(key, value);
+        this.compile(this.compiled.builtins());
+    }
+
+    @Override
+    public synchronized ChatTag<Player, Component> unregister(final String key) {
+        final ChatTag<Player, Component> removed = super.unregister(key);
+        this.compile(this.compiled.builtins());
+        return removed;
+    }
+
+    @Override
+    public synchronized ChatTag<Player, Component> get(final String key) {
+        return super.get(key);
+    }
+
+    @Override
+    public synchronized boolean contains(final String key) {
+        return super.contains(key);
+    }
+
+    @Override
+    public synchronized Map<String, ChatTag<Player, Component>> all() {
+        return Map.copyOf(super.all());
+    }
+
+    @Override
+    public synchronized void clearAll() {
+        super.clearAll();
+        this.compile(this.compiled.builtins());
+    }
+
+    /**
+     * Finds the tag written, ignoring case, between {@code start} (inclusive)
+     * and {@code end} (exclusive) of the given message.
+     *
+     * @param builtins the built-in tags of the runtime rendering the message,
+     *                 always the same list instance for a given runtime
+     * @return the matching tag, or {@code null} if no alias matches
+     */
+    public @Nullable ChatTag<Player, Component> match(
+            final @NotNull List<ChatTag<Player, Component>> builtins,
+            final @NotNull CharSequence message,
+            final int start,
+            final int end
+    ) {
+        Compiled compiled = this.compiled;
+        if (compiled.builtins() != builtins) {
+            compiled = this.switchTo(builtins);
+        }
+        return compiled.trie().match(message, start, end);
+    }
+
+    /**
+     * Compiles the given built-in tags unless another thread already did.
+     */
+    private synchronized @NotNull Compiled switchTo(final @NotNull List<ChatTag<Player, Component>> builtins) {
+        final Compiled compiled = this.compiled;
+        return compiled.builtins() == builtins ? compiled : this.compile(builtins);
+    }
+
+    private synchronized @NotNull Compiled compile(final @NotNull List<ChatTag<Player, Component>> builtins) {
+        final Map<String, ChatTag<Player, Component>> merged = new HashMap<>();
+        for (final ChatTag<Player, Component> builtin : builtins) {
+            merged.put(builtin.id(), builtin);
+        }
+        merged.putAll(super.all());
+
+        @SuppressWarnings("unchecked")
+        final ChatTag<Player, Component>[] tags = merged.values().toArray(new ChatTag[0]);
+        Arrays.sort(tags, DESCENDING_PRIORITY);
+
+        final List<TagTrie.Alias<ChatTag<Player, Component>>> aliases = new ArrayList<>();
+        for (final ChatTag<Player, Component> tag : tags) {
+            for (final String alias : tag.aliases()) {
+                aliases.add(new TagTrie.Alias<>(alias, tag));
+            }
+        }
+        final Compiled result = new Compiled(builtins, TagTrie.build(aliases));
+        this.compiled = result;
+        return result;
+    }
+
+    /**
+     * The aliases matched for a list of built-in tags, compared by identity.
+     */
+    private record Compiled(
+            @NotNull List<ChatTag<Player, Component>> builtins,
+            @NotNull TagTrie<ChatTag<Player, Component>> trie
+    ) {
+    }
+
+}
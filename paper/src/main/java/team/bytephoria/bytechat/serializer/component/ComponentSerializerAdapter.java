@@ -2,7 +2,19 @@ package team.bytephoria.bytechat.serializer.component;
 
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.serializer.ComponentSerializer;
+import org.jetbrains.annotations.NotNull;
 
 public interface ComponentSerializerAdapter extends ComponentSerializer<Component, Component, String> {
 
+    /**
+     * Escapes the given text so that deserializing it yields the text itself.
+     * Serializers without an escape syntax return the input unchanged.
+     *
+     * @param input the literal text
+     * @return the escaped text
+     */
+    default @NotNull String escape(final @NotNull String input) {
+        return input;
+    }
+
 }
@@ -0,0 +1,101 @@
+package team.bytephoria.bytechat.service;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import team.bytephoria.bytechat.capability.CapabilitySnapshot;
+import team.bytephoria.bytechat.configuration.ChatConfiguration;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the current {@link CapabilitySnapshot} of every player.
+ * <p>
+ * Snapshots are computed when a player joins, or on first use after a reload,
+ * and replaced as a whole when the player's permissions change. Since not every
+ * permissions plugin reports its changes, a snapshot is also computed again on
+ * first use once it is older than {@code settings.permission-cache-seconds}.
+ * Reads never block, so the async chat threads can consult them freely.
+ */
+public final class CapabilityService {
+
+    private final Map<UUID, Cached> snapshots = new ConcurrentHashMap<>();
+
+    /** How long a snapshot is used before it is computed again, or 0 to never expire. */
+    private volatile long timeToLiveNanos;
+
+    /**
+     * Applies the cache settings of a newly loaded configuration.
+     */
+    public void configure(final @NotNull ChatConfiguration.Settings settings) {
+        this.timeToLiveNanos = TimeUnit.SECONDS.toNanos(Math.max(settings.permissionCacheSeconds(), 0L));
+    }
+
+    /**
+     * Returns the snapshot of the given player, computing it if none exists yet
+     * or the cached one has expired.
+     */
+    public @NotNull CapabilitySnapshot snapshot(final @NotNull Player player) {
+        final Cached cached = this.snapshots.get(player.getUniqueId());
+        if (cached != null && this.isFresh(cached)) {
+            return cached.snapshot();
+        }
+
+        // Computing inside compute keeps a concurrent invalidation from being
+        // overwritten by a snapshot of outdated permissions.
+        return this.snapshots.compute(player.getUniqueId(), (uuid, current) ->
+                current != null && this.isFresh(current) ? current : this.cache(player)
+        ).snapshot();
+    }
+
+    /**
+     * Recomputes the snapshot of the given player.
+     */
+    public void refresh(final @NotNull Player player) {
+        this.snapshots.put(player.getUniqueId(), this.cache(player));
+    }
+
+    /**
+     * Recomputes the snapshot of the player with the given id if they are
+     * online, or drops it otherwise.
+     */
+    public void refresh(final @NotNull UUID uuid) {
+        final Player player = Bukkit.getPlayer(uuid);
+        if (player == null) {
+            this.snapshots.remove(uuid);
+            return;
+        }
+
+        this.refresh(player);
+    }
+
+    /**
+     * Drops every snapshot. They are computed again on next use.
+     */
+    public void invalidateAll() {
+        this.snapshots.clear();
+    }
+
+    /**
+     * Drops the snapshot of the given player.
+     */
+    public void invalidate(final @NotNull UUID uuid) {
+        this.snapshots.remove(uuid);
+    }
+
+    private @NotNull Cached cache(final @NotNull Player player) {
+        return new Cached(CapabilitySnapshot.compute(player), System.nanoTime());
+    }
+
+    private boolean isFresh(final @NotNull Cached cached) {
+        final long timeToLiveNanos = this.timeToLiveNanos;
+        return timeToLiveNanos == 0L || System.nanoTime() - cached.computedAt() < timeToLiveNanos;
+    }
+
+    private record Cached(@NotNull CapabilitySnapshot snapshot, long computedAt) {
+    }
+
+}
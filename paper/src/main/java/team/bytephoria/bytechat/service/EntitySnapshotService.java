@@ -0,0 +1,318 @@
+package team.bytephoria.bytechat.service;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.configuration.ChatConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Reads player state for chat tags on the thread that owns the player.
+ * <p>
+ * Chat is handled on async threads, but inventories may only be read by the
+ * thread owning the player: the main thread on Paper, the player's region on
+ * Folia. The reads a message needs are collected in a {@link Batch} and run
+ * together: directly when the caller already owns the player, otherwise as a
+ * single task on the player's entity scheduler, which the caller waits for at
+ * most the configured timeout.
+ * <p>
+ * Every successful read is kept per player and kind. When a batch times out,
+ * the last result of each kind is used instead if it is recent enough. Reads
+ * the task reaches after the caller gave up run their late reader instead,
+ * which only refreshes that result for the next message.
+ */
+public final class EntitySnapshotService {
+
+    private final Plugin plugin;
+    private final long timeoutNanos;
+    private final long fallbackMaxAgeNanos;
+
+    private final Map<CacheKey, Cached> latest = new ConcurrentHashMap<>();
+
+    private final LongAdder direct = new LongAdder();
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0L);
+
+    public EntitySnapshotService(
+            final @NotNull Plugin plugin,
+            final @NotNull ChatConfiguration.Tags.Capture configuration
+    ) {
+        this.plugin = plugin;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(configuration.timeoutMillis());
+        this.fallbackMaxAgeNanos = TimeUnit.SECONDS.toNanos(configuration.fallbackMaxAgeSeconds());
+    }
+
+    /**
+     * Starts collecting the reads of a single message.
+     *
+     * @param player the player to read
+     * @return an empty batch
+     */
+    public @NotNull Batch batch(final @NotNull Player player) {
+        return new Batch(player);
+    }
+
+    /**
+     * Drops the stored results of the given player.
+     */
+    public void invalidate(final @NotNull UUID uuid) {
+        this.latest.keySet().removeIf(key -> key.uuid().equals(uuid));
+    }
+
+    /**
+     * Drops every stored result.
+     */
+    public void clear() {
+        this.latest.clear();
+    }
+
+    public @NotNull Stats stats() {
+        return new Stats(
+                this.direct.sum(),
+                this.scheduled.sum(),
+                this.timeouts.sum(),
+                this.fallbacks.sum(),
+                this.totalWaitNanos.sum(),
+                this.maxWaitNanos.get()
+        );
+    }
+
+    private <T> @Nullable T store(final @NotNull CacheKey key, final @Nullable T value) {
+        if (value != null) {
+            this.latest.put(key, new Cached(value, System.nanoTime()));
+        }
+        return value;
+    }
+
+    private @Nullable Object fallback(final @NotNull CacheKey key) {
+        final Cached cached = this.latest.get(key);
+        if (cached == null || System.nanoTime() - cached.capturedAt() >= this.fallbackMaxAgeNanos) {
+            return null;
+        }
+
+        this.fallbacks.increment();
+        return cached.value();
+    }
+
+    /**
+     * The reads of a single message, run together by {@link #run()}.
+     * <p>
+     * A batch belongs to the chat thread handling the message and is not
+     * thread-safe. The value of each read is available from its supplier once
+     * the batch ran.
+     */
+    public final class Batch {
+
+        private final Player player;
+        private final List<Read<?>> reads = new ArrayList<>(4);
+        private boolean ran;
+
+        private Batch(final @NotNull Player player) {
+            this.player = player;
+        }
+
+        /**
+         * Adds a read that also refreshes the fallback when it runs too late.
+         *
+         * @see #add(String, Function, Function)
+         */
+        public <T> @NotNull Supplier<@Nullable T> add(
+                final @NotNull String kind,
+                final @NotNull Function<Player, ? extends T> reader
+        ) {
+            return this.add(kind, reader, reader);
+        }
+
+        /**
+         * Adds a read of the player's state.
+         *
+         * @param kind       identifies what is read, used to find a fallback result
+         * @param reader     reads the state; it must copy anything it returns, since
+         *                   the result may be reused for later messages
+         * @param lateReader reads the state instead of {@code reader} once the
+         *                   caller stopped waiting; its result is only kept as
+         *                   the fallback of later messages
+         * @return supplies the result once the batch ran: the value read, a recent
+         *         earlier result if the batch timed out, or {@code null} if neither
+         *         is available
+         */
+        public <T> @NotNull Supplier<@Nullable T> add(
+                final @NotNull String kind,
+                final @NotNull Function<Player, ? extends T> reader,
+                final @NotNull Function<Player, ? extends T> lateReader
+        ) {
+            if (this.ran) {
+                throw new IllegalStateException("The batch already ran");
+            }
+
+            final Read<T> read = new Read<>(new CacheKey(this.player.getUniqueId(), kind), reader, lateReader);
+            this.reads.add(read);
+            return read;
+        }
+
+        /**
+         * Runs every read added so far, waiting at most the configured timeout
+         * when they have to be scheduled.
+         */
+        public void run() {
+            if (this.ran) {
+                return;
+            }
+
+            this.ran = true;
+            if (this.reads.isEmpty()) {
+                return;
+            }
+
+            if (Bukkit.isOwnedByCurrentRegion(this.player)) {
+                EntitySnapshotService.this.direct.increment();
+                for (final Read<?> read : this.reads) {
+                    read.run(this.player, false);
+                    read.publish();
+                }
+                return;
+            }
+
+            EntitySnapshotService.this.scheduled.increment();
+            final AtomicBoolean abandoned = new AtomicBoolean();
+            final CompletableFuture<Void> future = new CompletableFuture<>();
+            final ScheduledTask task = this.player.getScheduler().run(EntitySnapshotService.this.plugin, scheduledTask -> {
+                try {
+                    for (final Read<?> read : this.reads) {
+                        read.run(this.player, abandoned.get());
+                    }
+                    future.complete(null);
+                } catch (final Throwable throwable) {
+                    future.completeExceptionally(throwable);
+                }
+            }, () -> future.complete(null));
+
+            // The player is no longer valid, so there is nothing to read.
+            if (task == null) {
+                return;
+            }
+
+            final long start = System.nanoTime();
+            try {
+                future.get(EntitySnapshotService.this.timeoutNanos, TimeUnit.NANOSECONDS);
+                for (final Read<?> read : this.reads) {
+                    read.publish();
+                }
+            } catch (final TimeoutException exception) {
+                abandoned.set(true);
+                EntitySnapshotService.this.timeouts.increment();
+                this.fallBack();
+            } catch (final InterruptedException exception) {
+                abandoned.set(true);
+                Thread.currentThread().interrupt();
+                this.fallBack();
+            } catch (final ExecutionException exception) {
+                throw new IllegalStateException("Failed to read the state of " + this.player.getName(), exception.getCause());
+            } finally {
+                final long waited = System.nanoTime() - start;
+                EntitySnapshotService.this.totalWaitNanos.add(waited);
+                EntitySnapshotService.this.maxWaitNanos.accumulate(waited);
+            }
+        }
+
+        private void fallBack() {
+            for (final Read<?> read : this.reads) {
+                read.fallBack();
+            }
+        }
+    }
+
+    /**
+     * A single read of a batch. The task owning the player writes {@code result},
+     * and the caller copies it to {@code value} only after waiting for the task,
+     * so a late task never changes what the caller sees.
+     */
+    private final class Read<T> implements Supplier<T> {
+
+        private final CacheKey key;
+        private final Function<Player, ? extends T> reader;
+        private final Function<Player, ? extends T> lateReader;
+
+        private @Nullable T result;
+        private @Nullable T value;
+
+        private Read(
+                final @NotNull CacheKey key,
+                final @NotNull Function<Player, ? extends T> reader,
+                final @NotNull Function<Player, ? extends T> lateReader
+        ) {
+            this.key = key;
+            this.reader = reader;
+            this.lateReader = lateReader;
+        }
+
+        private void run(final @NotNull Player owner, final boolean late) {
+            this.result = EntitySnapshotService.this.store(this.key, (late ? this.lateReader : this.reader).apply(owner));
+        }
+
+        private void publish() {
+            this.value = this.result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void fallBack() {
+            this.value = (T) EntitySnapshotService.this.fallback(this.key);
+        }
+
+        @Override
+        public @Nullable T get() {
+            return this.value;
+        }
+    }
+
+    private record CacheKey(@NotNull UUID uuid, @NotNull String kind) {
+    }
+
+    private record Cached(@NotNull Object value, long capturedAt) {
+    }
+
+    /**
+     * A point-in-time view of the capture counters.
+     *
+     * @param direct         batches run directly because the caller owned the player
+     * @param scheduled      batches scheduled on the player's entity scheduler
+     * @param timeouts       scheduled batches that did not finish in time
+     * @param fallbacks      reads of timed out batches answered with an earlier result
+     * @param totalWaitNanos the total time spent waiting for scheduled batches
+     * @param maxWaitNanos   the longest wait for a scheduled batch
+     */
+    public record Stats(
+            long direct,
+            long scheduled,
+            long timeouts,
+            long fallbacks,
+            long totalWaitNanos,
+            long maxWaitNanos
+    ) {
+
+        public double averageWaitMillis() {
+            return this.scheduled == 0L ? 0.0D : this.totalWaitNanos / (double) this.scheduled / 1_000_000.0D;
+        }
+    }
+
+}
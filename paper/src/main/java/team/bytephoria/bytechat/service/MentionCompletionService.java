@@ -0,0 +1,157 @@
+package team.bytephoria.bytechat.service;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.api.hook.VisibilityHook;
+import team.bytephoria.bytechat.capability.Capability;
+import team.bytephoria.bytechat.configuration.ChatConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps the mention completions of plain chat in sync with the online players.
+ * <p>
+ * Clients never ask the server to complete plain chat: they complete it from
+ * the names they know and from the custom chat completions the server sent
+ * them. Every player allowed to mention is therefore sent {@code @name} for
+ * each online player visible to them when they join, and the entry of a
+ * player is added to or removed from every other viewer as that player joins
+ * or quits. Custom completions are added and removed one by one, so those
+ * sent by other plugins are left untouched.
+ * <p>
+ * Visibility is checked when the entries are sent, so a player hidden
+ * afterwards stays in the list until they rejoin.
+ */
+public final class MentionCompletionService {
+
+    /** The trigger of a configuration where completions are disabled. */
+    private static final char DISABLED = '\0';
+
+    private final CapabilityService capabilityService;
+
+    /** The trigger character of the completions sent to players. Guarded by {@code this}. */
+    private char trigger = DISABLED;
+
+    public MentionCompletionService(final @NotNull CapabilityService capabilityService) {
+        this.capabilityService = capabilityService;
+    }
+
+    /**
+     * Applies the mention settings of a newly loaded configuration, replacing
+     * the completions of every online player if the trigger character changed
+     * or completion was turned on or off.
+     */
+    public synchronized void configure(final @NotNull ChatConfiguration.Chat chat) {
+        final ChatConfiguration.Mentions mentions = chat.mentions();
+        final char trigger = chat.enabled() && mentions.enabled() && mentions.tabCompletion()
+                ? mentions.triggerChar()
+                : DISABLED;
+        if (trigger == this.trigger) {
+            return;
+        }
+
+        final Collection<? extends Player> onlinePlayers = Bukkit.getOnlinePlayers();
+        if (this.trigger != DISABLED) {
+            final List<String> entries = new ArrayList<>(onlinePlayers.size());
+            for (final Player player : onlinePlayers) {
+                entries.add(this.trigger + player.getName());
+            }
+            for (final Player viewer : onlinePlayers) {
+                viewer.removeCustomChatCompletions(entries);
+            }
+        }
+
+        this.trigger = trigger;
+        if (trigger != DISABLED) {
+            final VisibilityHook visibilityHook = Bukkit.getServicesManager().load(VisibilityHook.class);
+            for (final Player viewer : onlinePlayers) {
+                this.sendAll(viewer, onlinePlayers, visibilityHook);
+            }
+        }
+    }
+
+    /**
+     * Sends the joining player their completions, and their own entry to every
+     * other player who can see them.
+     */
+    public synchronized void join(final @NotNull Player player) {
+        if (this.trigger == DISABLED) {
+            return;
+        }
+
+        final Collection<? extends Player> onlinePlayers = Bukkit.getOnlinePlayers();
+        final VisibilityHook visibilityHook = Bukkit.getServicesManager().load(VisibilityHook.class);
+        this.sendAll(player, onlinePlayers, visibilityHook);
+
+        final List<String> entry = List.of(this.trigger + player.getName());
+        for (final Player viewer : onlinePlayers) {
+            if (viewer != player && this.canMention(viewer) && isVisible(viewer, player, visibilityHook)) {
+                viewer.addCustomChatCompletions(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes the entry of the quitting player from every other player.
+     */
+    public synchronized void quit(final @NotNull Player player) {
+        if (this.trigger == DISABLED) {
+            return;
+        }
+
+        final List<String> entry = List.of(this.trigger + player.getName());
+        for (final Player viewer : Bukkit.getOnlinePlayers()) {
+            if (viewer != player) {
+                viewer.removeCustomChatCompletions(entry);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the target may be suggested to the viewer: players hidden
+     * through the server's visibility API or a registered {@link VisibilityHook}
+     * never are.
+     */
+    public static boolean isVisible(
+            final @NotNull Player viewer,
+            final @NotNull Player target,
+            final @Nullable VisibilityHook visibilityHook
+    ) {
+        if (viewer == target) {
+            return true;
+        }
+
+        if (!viewer.canSee(target)) {
+            return false;
+        }
+
+        return visibilityHook == null || !visibilityHook.isHidden(viewer.getUniqueId(), target.getUniqueId());
+    }
+
+    private void sendAll(
+            final @NotNull Player viewer,
+            final @NotNull Collection<? extends Player> onlinePlayers,
+            final @Nullable VisibilityHook visibilityHook
+    ) {
+        if (!this.canMention(viewer)) {
+            return;
+        }
+
+        final List<String> entries = new ArrayList<>(onlinePlayers.size());
+        for (final Player target : onlinePlayers) {
+            if (isVisible(viewer, target, visibilityHook)) {
+                entries.add(this.trigger + target.getName());
+            }
+        }
+        viewer.addCustomChatCompletions(entries);
+    }
+
+    private boolean canMention(final @NotNull Player player) {
+        return this.capabilityService.snapshot(player).has(Capability.FORMAT_MENTION);
+    }
+
+}
@@ -0,0 +1,123 @@
+package team.bytephoria.bytechat.service;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.sound.Sound;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.configuration.ChatConfiguration;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays the mention sound to mentioned players.
+ * <p>
+ * Notifications are queued from the async chat threads and played on the next
+ * tick through the mentioned player's own scheduler, which keeps them on the
+ * thread that owns the player on Folia as well as on Paper. A player that is
+ * mentioned several times within a tick only hears one sound, and a player
+ * never hears the sound more than once per configured cooldown, however many
+ * messages mention them.
+ */
+public final class MentionNotifier {
+
+    private final Plugin plugin;
+
+    /** The configured sound, or {@code null} if mention sounds are disabled. */
+    private final @Nullable Sound sound;
+    private final long cooldownNanos;
+
+    /** Players with a sound already scheduled for the next tick. */
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+
+    /** When each player last heard the mention sound, in {@link System#nanoTime()} units. */
+    private final Map<UUID, Long> lastPlayed = new ConcurrentHashMap<>();
+
+    public MentionNotifier(final @NotNull Plugin plugin, final @NotNull ChatConfiguration.Mentions configuration) {
+        this.plugin = plugin;
+        this.sound = createSound(configuration.sound());
+        this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(configuration.soundCooldownMillis());
+    }
+
+    /**
+     * Queues the mention sound for the given player.
+     * Safe to call from any thread.
+     */
+    public void enqueue(final @NotNull Player mentionedPlayer) {
+        if (this.sound == null) {
+            return;
+        }
+
+        final UUID uuid = mentionedPlayer.getUniqueId();
+        if (this.isCoolingDown(uuid, System.nanoTime()) || !this.pending.add(uuid)) {
+            return;
+        }
+
+        final Sound sound = this.sound;
+        final ScheduledTask task = mentionedPlayer.getScheduler().run(this.plugin, scheduledTask -> {
+            this.pending.remove(uuid);
+
+            final long now = System.nanoTime();
+            if (this.isCoolingDown(uuid, now)) {
+                return;
+            }
+
+            this.lastPlayed.put(uuid, now);
+            mentionedPlayer.playSound(sound);
+        }, () -> this.pending.remove(uuid));
+
+        // The player is no longer valid, so the task was not scheduled.
+        if (task == null) {
+            this.pending.remove(uuid);
+        }
+    }
+
+    /**
+     * Queues the mention sound for every given player, except the excluded one.
+     * Safe to call from any thread.
+     */
+    public void enqueueAll(final @NotNull Iterable<Player> mentionedPlayers, final @Nullable Player excluded) {
+        if (this.sound == null) {
+            return;
+        }
+
+        for (final Player mentionedPlayer : mentionedPlayers) {
+            if (mentionedPlayer != excluded) {
+                this.enqueue(mentionedPlayer);
+            }
+        }
+    }
+
+    /**
+     * Drops the state kept for the given player.
+     */
+    public void invalidate(final @NotNull UUID uuid) {
+        this.pending.remove(uuid);
+        this.lastPlayed.remove(uuid);
+    }
+
+    private boolean isCoolingDown(final @NotNull UUID uuid, final long now) {
+        final Long last = this.lastPlayed.get(uuid);
+        return last != null && now - last < this.cooldownNanos;
+    }
+
+    private static @Nullable Sound createSound(final @NotNull ChatConfiguration.Sound sound) {
+        if (sound.key().isBlank()) {
+            return null;
+        }
+
+        return Sound.sound(
+                Key.key(sound.key()),
+                Sound.Source.MASTER,
+                sound.volume(),
+                sound.pitch()
+        );
+    }
+
+}
@@ -1,90 +1,229 @@
 package team.bytephoria.bytechat.service;
 
-import net.kyori.adventure.key.Key;
-import net.kyori.adventure.sound.Sound;
-import org.bukkit.Bukkit;
+import net.kyori.adventure.text.Component;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import team.bytephoria.bytechat.Constants;
+import team.bytephoria.bytechat.capability.Capability;
+import team.bytephoria.bytechat.chat.mention.MentionGroup;
 import team.bytephoria.bytechat.configuration.ChatConfiguration;
-import team.bytephoria.bytechat.util.StringUtil;
+import team.bytephoria.bytechat.player.AudienceIndex;
+import team.bytephoria.bytechat.player.PlayerNameIndex;
+import team.bytephoria.bytechat.serializer.component.ComponentSerializerAdapter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 public final class MentionResolverService {
 
+    private static final int[] NO_RANGES = new int[0];
+
     private final ChatConfiguration configuration;
-    public MentionResolverService(final @NotNull ChatConfiguration configuration) {
+
+    /** Used to deserialize the configured mention format. */
+    private final ComponentSerializerAdapter serializerAdapter;
+
+    /** Resolves mentioned names case-insensitively, without allocating. */
+    private final PlayerNameIndex playerNameIndex;
+
+    /** Plays the mention sound, batched per tick and rate limited per player. */
+    private final MentionNotifier mentionNotifier;
+
+    /** The mentionable groups, checked before player names. */
+    private final List<MentionGroup> groups;
+
+    /** Provides the audience of each group without iterating the online players. */
+    private final AudienceIndex audienceIndex;
+
+    /** Used to check whether the sender may mention groups. */
+    private final CapabilityService capabilityService;
+
+    public MentionResolverService(
+            final @NotNull ChatConfiguration configuration,
+            final @NotNull ComponentSerializerAdapter serializerAdapter,
+            final @NotNull PlayerNameIndex playerNameIndex,
+            final @NotNull MentionNotifier mentionNotifier,
+            final @NotNull List<MentionGroup> groups,
+            final @NotNull AudienceIndex audienceIndex,
+            final @NotNull CapabilityService capabilityService
+    ) {
         this.configuration = configuration;
+        this.serializerAdapter = serializerAdapter;
+        this.playerNameIndex = playerNameIndex;
+        this.mentionNotifier = mentionNotifier;
+        this.groups = groups;
+        this.audienceIndex = audienceIndex;
+        this.capabilityService = capabilityService;
+    }
+
+    /**
+     * Returns the character that starts a mention.
+     */
+    public char triggerChar() {
+        return this.configuration.chat().mentions().triggerChar();
     }
 
-    public @NotNull String resolveMentions(final @NotNull Player player, final @NotNull String message) {
+    /**
+     * Resolves a single trigger-prefixed word into a mention component and
+     * notifies the mentioned player, or every player of the mentioned group.
+     *
+     * @param player  the player who sent the message
+     * @param message the raw message string
+     * @param start   the index of the trigger character
+     * @param end     the index after the last character of the word
+     * @return the formatted mention, or {@code null} if the word does not
+     *         mention an online player or a group the player may mention
+     */
+    public @Nullable Component resolveMention(
+            final @NotNull Player player,
+            final @NotNull String message,
+            final int start,
+            final int end
+    ) {
         final ChatConfiguration.Mentions mentions = this.configuration.chat().mentions();
-        final String[] parts = StringUtil.split(message, ' ');
-        if (parts == null) {
-            return message;
+
+        final MentionGroup group = this.findGroup(message, start + 1, end);
+        if (group != null) {
+            return this.resolveGroupMention(player, group, mentions);
         }
 
-        final StringBuilder stringBuilder = new StringBuilder();
-        for (int i = 0; i < parts.length; i++) {
-            final String word = parts[i];
-            if (word.charAt(0) != mentions.triggerChar()) {
-                stringBuilder.append(word).append(' ');
-                continue;
-            }
+        return this.resolvePlayerMention(player, message, start + 1, end, mentions);
+    }
 
-            final int wordLength = word.length();
-            final int minLength = Constants.MINECRAFT_MIN_USERNAME_LENGTH + 1;
-            final int maxLength = Constants.MINECRAFT_MAX_USERNAME_LENGTH + 1;
-            if (wordLength < minLength || wordLength > maxLength) {
-                this.appendWord(stringBuilder, word, i, parts.length);
+    /**
+     * Returns whether online player names are mentioned even when they are
+     * written without the trigger character.
+     */
+    public boolean mentionsWithoutTrigger() {
+        return this.configuration.chat().mentions().withoutTrigger();
+    }
+
+    /**
+     * Finds every whole word of the message that is the name of an online player.
+     * <p>
+     * Words are maximal runs of the characters allowed in player names. Each word
+     * of a valid name length is looked up in the {@link PlayerNameIndex} in place,
+     * so the scan is linear in the message length whatever the number of online
+     * players, and only allocates when a name is found.
+     *
+     * @param message the raw message string
+     * @return the {@code start, end} index pairs of the found names, in order
+     */
+    public int @NotNull [] findNameMentions(final @NotNull String message) {
+        int[] ranges = NO_RANGES;
+        int count = 0;
+
+        final int length = message.length();
+        int index = 0;
+        while (index < length) {
+            if (!isNameChar(message.charAt(index))) {
+                index = index + 1;
                 continue;
             }
 
-            final String mentionedPlayerName = word.substring(1);
-            final Player mentionedPlayer = Bukkit.getPlayerExact(mentionedPlayerName);
-            if (mentionedPlayer == null) {
-                this.appendWord(stringBuilder, word, i, parts.length);
-                continue;
+            final int wordStart = index;
+            while (index < length && isNameChar(message.charAt(index))) {
+                index = index + 1;
             }
 
-            if (!mentions.allowSelfMention() && player == mentionedPlayer) {
-                this.appendWord(stringBuilder, word, i, parts.length);
-                continue;
+            final int wordLength = index - wordStart;
+            if (wordLength >= Constants.MINECRAFT_MIN_USERNAME_LENGTH
+                    && wordLength <= Constants.MINECRAFT_MAX_USERNAME_LENGTH
+                    && this.playerNameIndex.find(message, wordStart, index) != null) {
+                if (count + 2 > ranges.length) {
+                    ranges = Arrays.copyOf(ranges, Math.max(4, ranges.length * 2));
+                }
+                ranges[count++] = wordStart;
+                ranges[count++] = index;
             }
+        }
 
-            final String formattedMention = mentions.format()
-                    .replace("{input_name}", mentionedPlayerName)
-                    .replace("{player_name}", mentionedPlayer.getName());
+        return count == ranges.length ? ranges : Arrays.copyOf(ranges, count);
+    }
 
-            this.appendWord(stringBuilder, formattedMention, i, parts.length);
-            if (!mentions.selfMentionSound() && mentionedPlayer == player) {
-                continue;
-            }
+    /**
+     * Resolves a player name written without the trigger character into a
+     * mention component and notifies the mentioned player.
+     *
+     * @param player  the player who sent the message
+     * @param message the raw message string
+     * @param start   the index of the first character of the name
+     * @param end     the index after the last character of the name
+     * @return the formatted mention, or {@code null} if the word does not
+     *         mention an online player
+     */
+    public @Nullable Component resolveNameMention(
+            final @NotNull Player player,
+            final @NotNull String message,
+            final int start,
+            final int end
+    ) {
+        return this.resolvePlayerMention(player, message, start, end, this.configuration.chat().mentions());
+    }
 
-            final ChatConfiguration.Sound sound = mentions.sound();
-            if (!sound.key().isBlank()) {
-                mentionedPlayer.playSound(
-                        Sound.sound(Key.key(sound.key()),
-                                Sound.Source.MASTER,
-                                sound.volume(),
-                                sound.pitch()
-                        )
-                );
-            }
+    private @Nullable Component resolvePlayerMention(
+            final @NotNull Player player,
+            final @NotNull String message,
+            final int nameStart,
+            final int nameEnd,
+            final @NotNull ChatConfiguration.Mentions mentions
+    ) {
+        final int nameLength = nameEnd - nameStart;
+        if (nameLength < Constants.MINECRAFT_MIN_USERNAME_LENGTH || nameLength > Constants.MINECRAFT_MAX_USERNAME_LENGTH) {
+            return null;
+        }
+
+        final Player mentionedPlayer = this.playerNameIndex.find(message, nameStart, nameEnd);
+        if (mentionedPlayer == null) {
+            return null;
+        }
+
+        if (!mentions.allowSelfMention() && player == mentionedPlayer) {
+            return null;
+        }
+
+        final String formattedMention = mentions.format()
+                .replace("{input_name}", message.substring(nameStart, nameEnd))
+                .replace("{player_name}", mentionedPlayer.getName());
+
+        if (mentions.selfMentionSound() || mentionedPlayer != player) {
+            this.mentionNotifier.enqueue(mentionedPlayer);
         }
 
-        return stringBuilder.toString();
+        return this.serializerAdapter.deserialize(formattedMention);
+    }
+
+    private static boolean isNameChar(final char c) {
+        return c >= 'a' && c <= 'z'
+                || c >= 'A' && c <= 'Z'
+                || c >= '0' && c <= '9'
+                || c == '_';
     }
 
-    private void appendWord(
-            final @NotNull StringBuilder stringBuilder,
-            final @NotNull String word,
-            final int index,
-            final int total
+    private @Nullable MentionGroup findGroup(final @NotNull String message, final int start, final int end) {
+        for (int i = 0; i < this.groups.size(); i++) {
+            final MentionGroup group = this.groups.get(i);
+            if (group.matches(message, start, end)) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    private @Nullable Component resolveGroupMention(
+            final @NotNull Player player,
+            final @NotNull MentionGroup group,
+            final @NotNull ChatConfiguration.Mentions mentions
     ) {
-        stringBuilder.append(word);
-        if (index < total - 1) {
-            stringBuilder.append(' ');
+        if (!this.capabilityService.snapshot(player).has(Capability.FORMAT_MENTION_GROUP)) {
+            return null;
         }
+
+        final Set<Player> audience = group.audience(this.audienceIndex, player);
+        this.mentionNotifier.enqueueAll(audience, mentions.selfMentionSound() ? null : player);
+        return group.component();
     }
 
 }
@@ -3,233 +3,334 @@ package team.bytephoria.bytechat.service;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.event.ClickCallback;
 import net.kyori.adventure.text.event.ClickEvent;
-import net.kyori.adventure.text.event.HoverEvent;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import team.bytephoria.bytechat.FeaturePermission;
+import team.bytephoria.bytechat.api.tag.ChatTag;
+import team.bytephoria.bytechat.capability.Capability;
+import team.bytephoria.bytechat.chat.hover.ItemHoverBuilder;
+import team.bytephoria.bytechat.chat.tag.BuiltinChatTag;
 import team.bytephoria.bytechat.configuration.ChatConfiguration;
+import team.bytephoria.bytechat.registry.PaperChatTagRegistry;
+import team.bytephoria.bytechat.ui.AbstractPreviewMenu;
 import team.bytephoria.bytechat.ui.CompleteInventoryPreviewMenu;
 import team.bytephoria.bytechat.ui.EnderChestPreviewMenu;
 import team.bytephoria.bytechat.ui.EquipmentPreviewMenu;
+import team.bytephoria.bytechat.ui.PreviewInventoryTracker;
+import team.bytephoria.bytechat.ui.PreviewStore;
+import team.bytephoria.bytechat.ui.PreviewType;
 
 import java.time.Duration;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
- * Handles the resolution of inline chat tags by converting them into
- * unique placeholder markers during parsing. These markers are later
- * replaced by the renderer with their corresponding chat components.
+ * Handles the resolution of inline chat tags such as {@code [item]} or
+ * {@code [inv]} into their corresponding chat components.
+ * <p>
+ * Locating the tags inside a message is done by the
+ * {@link team.bytephoria.bytechat.chat.pipeline.TagStage}, which hands
+ * each bracketed candidate to {@link #resolveTag}. The candidate is matched
+ * against the aliases of the built-in tags of this service and of the tags
+ * other plugins registered in the {@link PaperChatTagRegistry}.
+ * <p>
+ * Every tag of a message is prepared before any is completed, so the items
+ * they show are read from the player in a single {@link EntitySnapshotService.Batch}.
  */
 public final class TagResolverService {
 
-    private static final char OPEN_BRACKET = '[';
-    private static final char CLOSE_BRACKET = ']';
+    private final ChatConfiguration configuration;
+    private final CapabilityService capabilityService;
+
+    /** Matches the bracketed candidates against the registered tag aliases. */
+    private final PaperChatTagRegistry chatTagRegistry;
+
+    /** Owns the snapshots behind preview links, so click callbacks stay small. */
+    private final PreviewStore previewStore;
+
+    /** Reads the player's items on the thread that owns the player. */
+    private final EntitySnapshotService entitySnapshotService;
+
+    /** Records opened previews, so inventory events can recognize them by identity. */
+    private final PreviewInventoryTracker previewInventoryTracker;
 
-    public static final String PLACEHOLDER_PREFIX = "<<<BYTECHAT_TAG_";
-    public static final String PLACEHOLDER_SUFFIX = ">>>";
+    /** Builds the [item] component with a size-capped hover payload. */
+    private final ItemHoverBuilder itemHoverBuilder;
+
+    /** The tags shipped with ByteChat, bound to this service's configuration. */
+    private final List<ChatTag<Player, Component>> builtinTags;
+
+    public TagResolverService(
+            final @NotNull ChatConfiguration configuration,
+            final @NotNull CapabilityService capabilityService,
+            final @NotNull PaperChatTagRegistry chatTagRegistry,
+            final @NotNull PreviewStore previewStore,
+            final @NotNull EntitySnapshotService entitySnapshotService,
+            final @NotNull PreviewInventoryTracker previewInventoryTracker
+    ) {
+        this.configuration = configuration;
+        this.capabilityService = capabilityService;
+        this.chatTagRegistry = chatTagRegistry;
+        this.previewStore = previewStore;
+        this.entitySnapshotService = entitySnapshotService;
+        this.previewInventoryTracker = previewInventoryTracker;
+        this.itemHoverBuilder = new ItemHoverBuilder(configuration.chat().tags().item().hover());
+        this.builtinTags = List.of(
+                new BuiltinChatTag("item", 0, List.of("item"), entitySnapshotService, this::createItemComponent),
+                new BuiltinChatTag("inventory", 0, List.of("inv"), entitySnapshotService, this::createInventoryComponent),
+                new BuiltinChatTag("armor", 0, List.of("armor"), entitySnapshotService, this::createEquipmentComponent),
+                new BuiltinChatTag("ender-chest", 0, List.of("ec", "ender", "enderchest"), entitySnapshotService, this::createEnderchestInventoryComponent)
+        );
+    }
 
     /**
-     * Pre-compiled pattern for splitting strings on ByteChat placeholder boundaries.
-     * Matches immediately before a prefix and immediately after a suffix, allowing
-     * callers to isolate placeholder markers from surrounding text in a single pass.
+     * Returns the maximum number of tags resolved in a single message,
+     * or a negative value if there is no limit.
      */
-    public static final Pattern PLACEHOLDER_SPLIT_PATTERN = Pattern.compile(
-            "(?=" + Pattern.quote(PLACEHOLDER_PREFIX) + ")"
-                    + "|(?<=" + Pattern.quote(PLACEHOLDER_SUFFIX) + ")"
-    );
+    public int maxTagsPerMessage() {
+        return this.configuration.chat().tags().maxTagsPerMessage();
+    }
 
-    private final ChatConfiguration configuration;
-    public TagResolverService(final @NotNull ChatConfiguration configuration) {
-        this.configuration = configuration;
+    /**
+     * Starts collecting the reads of the tags of a message.
+     */
+    public @NotNull EntitySnapshotService.Batch batch(final @NotNull Player player) {
+        return this.entitySnapshotService.batch(player);
     }
 
     /**
-     * Resolves all supported tags within the message.
-     * <p>
-     * The parser works in a single pass:
-     * <ul>
-     *     <li>When a tag is detected, it is validated.</li>
-     *     <li>A placeholder is inserted into the output string.</li>
-     *     <li>A {@link TagComponent} is generated for later injection.</li>
-     *     <li>Processing stops once the per-message tag limit is reached.</li>
-     * </ul>
+     * Prepares the tag written between a pair of brackets. Tags registered by
+     * other plugins are resolved right away.
      *
-     * @param player the player who sent the message
+     * @param player  the player who sent the message
      * @param message the raw message string
-     * @return the processed message along with all resolved tag components
+     * @param start   the index after the opening bracket
+     * @param end     the index of the closing bracket
+     * @param batch   the reads of the message, which the tag adds its own to
+     * @return supplies the component representing the tag once the batch ran,
+     *         or {@code null} if the content is not a supported tag
      */
-    public @NotNull TagResolutionResult resolveTags(
+    public @Nullable Supplier<@Nullable Component> prepareTag(
             final @NotNull Player player,
-            final @NotNull String message
+            final @NotNull String message,
+            final int start,
+            final int end,
+            final EntitySnapshotService.@NotNull Batch batch
     ) {
-        final int maxTags = this.configuration.chat().tags().maxTagsPerMessage();
-        final List<TagComponent> tagComponents = new ArrayList<>();
-        final StringBuilder processedMessage = new StringBuilder();
-
-        int tagCounter = 0;
-        int index = 0;
-        final int length = message.length();
-
-        while (index < length) {
-            // Stop parsing if tag limit reached.
-            if (tagCounter >= maxTags) {
-                processedMessage.append(message.substring(index));
-                break;
-            }
-
-            final char c = message.charAt(index);
-
-            // Attempt to parse tag.
-            if (c == OPEN_BRACKET) {
-                final int tagStart = index;
-                final int tagEnd = message.indexOf(CLOSE_BRACKET, tagStart);
-
-                if (tagEnd != -1) {
-                    final String tagContent = message.substring(tagStart + 1, tagEnd);
-                    final Component tagComponent = this.createTagComponent(player, tagContent);
-
-                    if (tagComponent != null) {
-                        // Create unique placeholder for replacement.
-                        final String placeholder = PLACEHOLDER_PREFIX + tagCounter + PLACEHOLDER_SUFFIX;
-
-                        processedMessage.append(placeholder);
-                        tagComponents.add(new TagComponent(placeholder, tagComponent));
-
-                        tagCounter = tagCounter + 1;
-                        index = tagEnd + 1;
-                        continue;
-                    }
-                }
-            }
-
-            processedMessage.append(c);
-            index = index + 1;
+        final ChatTag<Player, Component> tag = this.chatTagRegistry.match(this.builtinTags, message, start, end);
+        if (tag == null) {
+            return null;
         }
 
-        return new TagResolutionResult(processedMessage.toString(), tagComponents);
-    }
+        if (tag instanceof final BuiltinChatTag builtinTag) {
+            return builtinTag.prepare(player, batch);
+        }
 
-    /**
-     * Determines which tag type to create based on the content inside brackets.
-     *
-     * @param player the player whose state is used for tag data
-     * @param tagType the tag identifier such as "item", "inv", or "armor"
-     * @return the component representing the tag or null if unsupported
-     */
-    private @Nullable Component createTagComponent(final @NotNull Player player, final @NotNull String tagType) {
-        return switch (tagType.toLowerCase()) {
-            case "item" -> this.createItemComponent(player);
-            case "inv" -> this.createInventoryComponent(player);
-            case "armor" -> this.createEquipmentComponent(player);
-            case "ec", "ender", "enderchest" -> this.createEnderchestInventoryComponent(player);
-            default -> null;
-        };
+        final Component component = tag.resolve(player);
+        return component == null ? null : () -> component;
     }
 
     /**
      * Creates a component representing the player's main-hand item.
-     * Includes a hover event with full item tooltip.
+     * Includes a hover event with the item tooltip, capped in size by the {@link ItemHoverBuilder}.
      * Displays fallback text if the player is not holding an item.
      */
-    private @Nullable Component createItemComponent(final @NotNull Player player) {
+    private @Nullable Supplier<@Nullable Component> createItemComponent(
+            final @NotNull Player player,
+            final EntitySnapshotService.@NotNull Batch batch
+    ) {
         final ChatConfiguration.Tags.ItemTag itemConfig = this.configuration.chat().tags().item();
-        if (!itemConfig.enabled() && !player.hasPermission(FeaturePermission.Format.TAG_ITEM)) {
+        if (!itemConfig.enabled() && !this.capabilityService.snapshot(player).has(Capability.FORMAT_TAG_ITEM)) {
             return null;
         }
 
-        final ItemStack item = player.getInventory().getItemInMainHand();
-        if (item.getType().isAir()) {
-            final NamedTextColor color = this.parseColor(itemConfig.emptyHandColor());
-            return Component.text(itemConfig.emptyHandText(), color);
-        }
+        return batch.add("item", owner -> {
+            final ItemStack item = owner.getInventory().getItemInMainHand();
+            if (item.getType().isAir()) {
+                final NamedTextColor color = this.parseColor(itemConfig.emptyHandColor());
+                return Component.text(itemConfig.emptyHandText(), color);
+            }
 
-        return item.displayName()
-                .hoverEvent(HoverEvent.showItem(item.asHoverEvent().value()));
+            return this.itemHoverBuilder.build(item);
+        });
     }
 
     /**
      * Creates a component for the player's equipment preview.
      * Clicking the component opens a GUI showing their armor.
      */
-    private @Nullable Component createEquipmentComponent(final @NotNull Player player) {
+    private @Nullable Supplier<@Nullable Component> createEquipmentComponent(
+            final @NotNull Player player,
+            final EntitySnapshotService.@NotNull Batch batch
+    ) {
         final ChatConfiguration.Tags.ArmorTag armorConfig = this.configuration.chat().tags().armor();
-        if (!armorConfig.enabled() || !player.hasPermission(FeaturePermission.Format.TAG_ARMOR)) {
+        if (!armorConfig.enabled() || !this.capabilityService.snapshot(player).has(Capability.FORMAT_TAG_ARMOR)) {
             return null;
         }
 
         final String armorTitle = this.configuration.chat().tags().armor().previewTitle()
                 .replace("{player_name}", player.getName());
 
-        final EquipmentPreviewMenu previewMenu = EquipmentPreviewMenu.create(player, armorTitle);
+        final Duration lifetime = Duration.ofSeconds(armorConfig.expirationSeconds());
+        final Supplier<Long> snapshotId = this.capturePreview(
+                player,
+                batch,
+                PreviewType.ARMOR,
+                EquipmentPreviewMenu::contentsOf,
+                lifetime,
+                contents -> EquipmentPreviewMenu.create(armorTitle, contents)
+        );
+
         final NamedTextColor color = this.parseColor(armorConfig.displayColor());
 
-        return Component.text(armorConfig.displayText(), color)
-                .clickEvent(ClickEvent.callback(audience -> {
-                    if (audience instanceof Player clickedPlayer) {
-                        clickedPlayer.openInventory(previewMenu.getInventory());
-                    }
-                }, ClickCallback.Options.builder()
-                        .uses(armorConfig.maxClicks())
-                        .lifetime(Duration.ofSeconds(armorConfig.expirationSeconds()))
-                        .build()));
+        return () -> {
+            final Long id = snapshotId.get();
+            return id == null ? null : Component.text(armorConfig.displayText(), color)
+                    .clickEvent(this.createPreviewClickEvent(id, armorConfig.maxClicks(), lifetime));
+        };
     }
 
     /**
      * Creates a component for the player's full inventory preview.
      * Clicking the component opens a GUI showing the full inventory contents.
      */
-    private @Nullable Component createInventoryComponent(final @NotNull Player player) {
+    private @Nullable Supplier<@Nullable Component> createInventoryComponent(
+            final @NotNull Player player,
+            final EntitySnapshotService.@NotNull Batch batch
+    ) {
         final ChatConfiguration.Tags.InventoryTag invConfig = this.configuration.chat().tags().inventory();
-        if (!invConfig.enabled() || !player.hasPermission(FeaturePermission.Format.TAG_INVENTORY)) {
+        if (!invConfig.enabled() || !this.capabilityService.snapshot(player).has(Capability.FORMAT_TAG_INVENTORY)) {
             return null;
         }
 
         final String inventoryTitle = this.configuration.chat().tags().inventory().previewTitle()
                 .replace("{player_name}", player.getName());
 
-        final CompleteInventoryPreviewMenu previewMenu = CompleteInventoryPreviewMenu.create(player, inventoryTitle);
+        final Duration lifetime = Duration.ofSeconds(invConfig.expirationSeconds());
+        final Supplier<Long> snapshotId = this.capturePreview(
+                player,
+                batch,
+                PreviewType.INVENTORY,
+                CompleteInventoryPreviewMenu::contentsOf,
+                lifetime,
+                contents -> CompleteInventoryPreviewMenu.create(inventoryTitle, contents)
+        );
+
         final NamedTextColor color = this.parseColor(invConfig.displayColor());
 
-        return Component.text(invConfig.displayText(), color)
-                .clickEvent(ClickEvent.callback(audience -> {
-                    if (audience instanceof Player clickedPlayer) {
-                        clickedPlayer.openInventory(previewMenu.getInventory());
-                    }
-                }, ClickCallback.Options.builder()
-                        .uses(invConfig.maxClicks())
-                        .lifetime(Duration.ofSeconds(invConfig.expirationSeconds()))
-                        .build()));
+        return () -> {
+            final Long id = snapshotId.get();
+            return id == null ? null : Component.text(invConfig.displayText(), color)
+                    .clickEvent(this.createPreviewClickEvent(id, invConfig.maxClicks(), lifetime));
+        };
     }
 
     /**
      * Creates a component for the player's ender chest preview.
      * Clicking the component opens a GUI showing the ender chest contents.
      */
-    private @Nullable Component createEnderchestInventoryComponent(final @NotNull Player player) {
+    private @Nullable Supplier<@Nullable Component> createEnderchestInventoryComponent(
+            final @NotNull Player player,
+            final EntitySnapshotService.@NotNull Batch batch
+    ) {
         final ChatConfiguration.EnderChestTag enderChestTag = this.configuration.chat().tags().enderChest();
-        if (!enderChestTag.enabled() && !player.hasPermission(FeaturePermission.Format.TAG_ENDERCHEST)) {
+        if (!enderChestTag.enabled() && !this.capabilityService.snapshot(player).has(Capability.FORMAT_TAG_ENDERCHEST)) {
             return null;
         }
 
         final String inventoryTitle = enderChestTag.previewTitle()
                 .replace("{player_name}", player.getName());
 
-        final EnderChestPreviewMenu enderChestPreviewMenu = EnderChestPreviewMenu.create(player, Component.text(inventoryTitle));
-        return Component.text(enderChestTag.displayText(), this.parseColor(enderChestTag.displayColor()))
-                .clickEvent(ClickEvent.callback(audience -> {
-                    if (audience instanceof Player clickedPlayer) {
-                        clickedPlayer.openInventory(enderChestPreviewMenu.getInventory());
-                    }
-                }, ClickCallback.Options.builder()
-                        .uses(enderChestTag.maxClicks())
-                        .lifetime(Duration.ofSeconds(enderChestTag.expirationSeconds()))
-                        .build()));
+        final Duration lifetime = Duration.ofSeconds(enderChestTag.expirationSeconds());
+        final Supplier<Long> snapshotId = this.capturePreview(
+                player,
+                batch,
+                PreviewType.ENDER_CHEST,
+                EnderChestPreviewMenu::contentsOf,
+                lifetime,
+                contents -> EnderChestPreviewMenu.create(Component.text(inventoryTitle), contents)
+        );
+
+        final NamedTextColor color = this.parseColor(enderChestTag.displayColor());
+
+        return () -> {
+            final Long id = snapshotId.get();
+            return id == null ? null : Component.text(enderChestTag.displayText(), color)
+                    .clickEvent(this.createPreviewClickEvent(id, enderChestTag.maxClicks(), lifetime));
+        };
+    }
+
+    /**
+     * Adds the read of a preview to the batch.
+     * <p>
+     * A read that runs in time stores the snapshot in the {@link PreviewStore}
+     * right away, from the live items. A read that runs after the chat thread
+     * gave up only copies the items, and is kept as the fallback of the next
+     * message; the store never holds a snapshot no message links to.
+     *
+     * @return supplies the id of the stored snapshot once the batch ran, or
+     *         {@code null} if the items could not be read
+     */
+    private @NotNull Supplier<@Nullable Long> capturePreview(
+            final @NotNull Player player,
+            final EntitySnapshotService.@NotNull Batch batch,
+            final @NotNull PreviewType type,
+            final @NotNull Function<Player, @Nullable ItemStack @NotNull []> contents,
+            final @NotNull Duration lifetime,
+            final @NotNull Function<ItemStack[], AbstractPreviewMenu> factory
+    ) {
+        final Supplier<PreviewRead> read = batch.add(
+                type.name(),
+                owner -> PreviewRead.stored(this.previewStore.capture(owner.getUniqueId(), type, contents.apply(owner), lifetime, factory)),
+                owner -> PreviewRead.copied(AbstractPreviewMenu.snapshot(contents.apply(owner)))
+        );
+
+        return () -> {
+            final PreviewRead result = read.get();
+            if (result == null) {
+                return null;
+            }
 
+            final ItemStack[] items = result.items();
+            return items == null
+                    ? result.snapshotId()
+                    : this.previewStore.capture(player.getUniqueId(), type, items, lifetime, factory);
+        };
+    }
+
+    /**
+     * Creates the click event opening a snapshot of the {@link PreviewStore}.
+     * The callback only captures the snapshot id, and tells the player when the
+     * preview is no longer available.
+     */
+    private @NotNull ClickEvent createPreviewClickEvent(
+            final long snapshotId,
+            final int maxClicks,
+            final @NotNull Duration lifetime
+    ) {
+        final PreviewStore previewStore = this.previewStore;
+        final PreviewInventoryTracker previewInventoryTracker = this.previewInventoryTracker;
+        final ChatConfiguration.Tags.PreviewStore storeConfig = this.configuration.chat().tags().previewStore();
+
+        return ClickEvent.callback(audience -> {
+            if (!(audience instanceof Player clickedPlayer)) {
+                return;
+            }
+
+            final AbstractPreviewMenu storedMenu = previewStore.get(snapshotId);
+            if (storedMenu == null) {
+                clickedPlayer.sendMessage(Component.text(storeConfig.expiredText(), this.parseColor(storeConfig.expiredColor())));
+                return;
+            }
+
+            previewInventoryTracker.open(clickedPlayer, storedMenu.getInventory());
+        }, ClickCallback.Options.builder()
+                .uses(maxClicks)
+                .lifetime(lifetime)
+                .build());
     }
 
     /**
@@ -240,13 +341,19 @@ public final class TagResolverService {
         return NamedTextColor.NAMES.valueOr(colorName.toLowerCase(), NamedTextColor.WHITE);
     }
 
-    public record TagResolutionResult(
-            @NotNull String processedMessage,
-            @NotNull List<TagComponent> tagComponents
-    ) {}
+    /**
+     * The result of reading a preview: either the id of a snapshot already in
+     * the {@link PreviewStore}, or a copy of the items to store.
+     */
+    private record PreviewRead(long snapshotId, @Nullable ItemStack @Nullable [] items) {
+
+        private static @NotNull PreviewRead stored(final long snapshotId) {
+            return new PreviewRead(snapshotId, null);
+        }
+
+        private static @NotNull PreviewRead copied(final @Nullable ItemStack @NotNull [] items) {
+            return new PreviewRead(-1L, items);
+        }
+    }
 
-    public record TagComponent(
-            @NotNull String placeholder,
-            @NotNull Component component
-    ) {}
 }
@@ -1,31 +1,100 @@
-
 package team.bytephoria.bytechat.ui;
 
 import net.kyori.adventure.text.Component;
 import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+/**
+ * A read-only menu previewing a snapshot of a player's items.
+ * <p>
+ * Only the items are captured when the menu is created, which happens for every
+ * tag written in chat. The Bukkit {@link Inventory} is built from them on the
+ * first call to {@link #getInventory()}, usually the first click on the tag, and
+ * shared by every later click. Links that are never clicked therefore never pay
+ * for an inventory.
+ */
 public abstract class AbstractPreviewMenu implements InventoryHolder {
 
-    private final Inventory inventory;
-    protected AbstractPreviewMenu(final @NotNull Component title) {
-        this.inventory = Bukkit.createInventory(this, 54, title);
-    }
+    private static final int CHEST_SIZE = 54;
+
+    /** The inventory type, or {@code null} for a double chest. */
+    private final @Nullable InventoryType inventoryType;
+    private final Component title;
+    private final @Nullable ItemStack @NotNull [] contents;
 
-    protected AbstractPreviewMenu(final @NotNull InventoryType inventoryType, final @NotNull Component title) {
-        this.inventory = Bukkit.createInventory(this, inventoryType, title);
+    private volatile Inventory inventory;
+
+    protected AbstractPreviewMenu(final @NotNull Component title, final @Nullable ItemStack @NotNull [] contents) {
+        this.inventoryType = null;
+        this.title = title;
+        this.contents = contents;
     }
 
-    public abstract void populateInventory(
-            final @NotNull Player player
-    );
+    protected AbstractPreviewMenu(
+            final @NotNull InventoryType inventoryType,
+            final @NotNull Component title,
+            final @Nullable ItemStack @NotNull [] contents
+    ) {
+        this.inventoryType = inventoryType;
+        this.title = title;
+        this.contents = contents;
+    }
 
+    /**
+     * Returns the preview inventory, creating it on first use.
+     */
     @Override
     public @NotNull Inventory getInventory() {
-        return this.inventory;
+        Inventory inventory = this.inventory;
+        if (inventory == null) {
+            synchronized (this) {
+                inventory = this.inventory;
+                if (inventory == null) {
+                    inventory = this.inventoryType == null
+                            ? Bukkit.createInventory(this, CHEST_SIZE, this.title)
+                            : Bukkit.createInventory(this, this.inventoryType, this.title);
+                    inventory.setContents(this.contents);
+                    this.inventory = inventory;
+                }
+            }
+        }
+        return inventory;
+    }
+
+    protected @NotNull Component title() {
+        return this.title;
+    }
+
+    /**
+     * Returns the captured items. The array is shared and must not be modified.
+     */
+    @Nullable ItemStack @NotNull [] contents() {
+        return this.contents;
+    }
+
+    /**
+     * Returns a menu of the same kind and title holding the given items,
+     * used by the {@link PreviewStore} to restore compacted snapshots.
+     */
+    abstract @NotNull AbstractPreviewMenu withContents(final @Nullable ItemStack @NotNull [] contents);
+
+    /**
+     * Copies the given items, so later changes to the player's inventory do not
+     * show up in the preview. Empty slots are kept as {@code null}.
+     */
+    public static @Nullable ItemStack @NotNull [] snapshot(final @Nullable ItemStack @NotNull [] items) {
+        final ItemStack[] snapshot = new ItemStack[items.length];
+        for (int i = 0; i < items.length; i++) {
+            final ItemStack item = items[i];
+            if (item != null && !item.getType().isAir()) {
+                snapshot[i] = item.clone();
+            }
+        }
+        return snapshot;
     }
 }
@@ -2,22 +2,29 @@ package team.bytephoria.bytechat.ui;
 
 import net.kyori.adventure.text.Component;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public final class CompleteInventoryPreviewMenu extends AbstractPreviewMenu {
 
-    private CompleteInventoryPreviewMenu(final @NotNull Player player, final @NotNull String title) {
-        super(Component.text(title));
+    private CompleteInventoryPreviewMenu(final @NotNull Component title, final @Nullable ItemStack @NotNull [] contents) {
+        super(title, contents);
     }
 
-    public static @NotNull CompleteInventoryPreviewMenu create(final @NotNull Player player, final @NotNull String title) {
-        final CompleteInventoryPreviewMenu menu = new CompleteInventoryPreviewMenu(player, title);
-        menu.populateInventory(player);
-        return menu;
+    /**
+     * Returns the live items shown by this preview, without copying them.
+     */
+    public static @Nullable ItemStack @NotNull [] contentsOf(final @NotNull Player player) {
+        return player.getInventory().getContents();
+    }
+
+    public static @NotNull CompleteInventoryPreviewMenu create(final @NotNull String title, final @Nullable ItemStack @NotNull [] contents) {
+        return new CompleteInventoryPreviewMenu(Component.text(title), snapshot(contents));
     }
 
     @Override
-    public void populateInventory(final @NotNull Player player) {
-        this.getInventory().setContents(player.getInventory().getContents());
+    @NotNull CompleteInventoryPreviewMenu withContents(final @Nullable ItemStack @NotNull [] contents) {
+        return new CompleteInventoryPreviewMenu(this.title(), contents);
     }
 }
@@ -5,22 +5,27 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public final class EnderChestPreviewMenu extends AbstractPreviewMenu {
 
-    EnderChestPreviewMenu(final @NotNull InventoryType inventoryType, final @NotNull Component title) {
-        super(inventoryType, title);
+    EnderChestPreviewMenu(final @NotNull Component title, final @Nullable ItemStack @NotNull [] contents) {
+        super(InventoryType.ENDER_CHEST, title, contents);
     }
 
-    public static @NotNull EnderChestPreviewMenu create(final @NotNull Player player, final @NotNull Component title) {
-        final EnderChestPreviewMenu menu = new EnderChestPreviewMenu(InventoryType.ENDER_CHEST, title);
-        menu.populateInventory(player);
-        return menu;
+    /**
+     * Returns the live items shown by this preview, without copying them.
+     */
+    public static @Nullable ItemStack @NotNull [] contentsOf(final @NotNull Player player) {
+        return player.getEnderChest().getContents();
+    }
+
+    public static @NotNull EnderChestPreviewMenu create(final @NotNull Component title, final @Nullable ItemStack @NotNull [] contents) {
+        return new EnderChestPreviewMenu(title, snapshot(contents));
     }
 
     @Override
-    public void populateInventory(final @NotNull Player player) {
-        final ItemStack[] contents = player.getEnderChest().getContents();
-        this.getInventory().setContents(contents);
+    @NotNull EnderChestPreviewMenu withContents(final @Nullable ItemStack @NotNull [] contents) {
+        return new EnderChestPreviewMenu(this.title(), contents);
     }
 }
@@ -5,29 +5,34 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public final class EquipmentPreviewMenu extends AbstractPreviewMenu {
 
-    private EquipmentPreviewMenu(final @NotNull Player player, final @NotNull String title) {
-        super(InventoryType.HOPPER, Component.text(title));
+    private EquipmentPreviewMenu(final @NotNull Component title, final @Nullable ItemStack @NotNull [] contents) {
+        super(InventoryType.HOPPER, title, contents);
     }
 
-    public static @NotNull EquipmentPreviewMenu create(final @NotNull Player player, final @NotNull String title) {
-        final EquipmentPreviewMenu menu = new EquipmentPreviewMenu(player, title);
-        menu.populateInventory(player);
-        return menu;
-    }
-
-    @Override
-    public void populateInventory(final @NotNull Player player) {
+    /**
+     * Returns the live items shown by this preview, the armor followed by the
+     * off-hand item, without copying them.
+     */
+    public static @Nullable ItemStack @NotNull [] contentsOf(final @NotNull Player player) {
         final ItemStack[] armorContents = player.getInventory().getArmorContents();
         final ItemStack offHand = player.getInventory().getItemInOffHand();
 
         final ItemStack[] contents = new ItemStack[5];
         System.arraycopy(armorContents, 0, contents, 0, armorContents.length);
         contents[armorContents.length] = offHand;
+        return contents;
+    }
 
-        this.getInventory().setContents(contents);
+    public static @NotNull EquipmentPreviewMenu create(final @NotNull String title, final @Nullable ItemStack @NotNull [] contents) {
+        return new EquipmentPreviewMenu(Component.text(title), snapshot(contents));
     }
 
+    @Override
+    @NotNull EquipmentPreviewMenu withContents(final @Nullable ItemStack @NotNull [] contents) {
+        return new EquipmentPreviewMenu(this.title(), contents);
+    }
 }
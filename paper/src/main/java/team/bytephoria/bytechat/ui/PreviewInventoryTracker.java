@@ -0,0 +1,100 @@
+package team.bytephoria.bytechat.ui;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the preview inventories currently viewed by at least one player.
+ * <p>
+ * Inventory click and drag events fire for every container on the server, so
+ * telling preview inventories apart must be as cheap as possible. Previews are
+ * recorded by identity when ByteChat opens them and released when they are
+ * closed, which reduces the check to one identity lookup, or none at all while
+ * no preview is open. Looking up the inventory holder is avoided entirely, as
+ * it can snapshot a block state for block-backed containers.
+ * <p>
+ * The map is never modified once published: opens and closes copy it and swap
+ * it in through a single volatile write, so the checks never lock. A preview
+ * shared by several viewers is counted once per viewer.
+ */
+public final class PreviewInventoryTracker {
+
+    private volatile Map<Inventory, Integer> viewers = Map.of();
+
+    /**
+     * Opens the preview inventory for the player and tracks it while it stays open.
+     */
+    public void open(final @NotNull Player player, final @NotNull Inventory inventory) {
+        final InventoryView view = player.openInventory(inventory);
+
+        // Another plugin may have cancelled the open.
+        if (view != null && view.getTopInventory() == inventory) {
+            this.acquire(inventory);
+        }
+    }
+
+    /**
+     * Releases one viewer of the given inventory, if it is a tracked preview.
+     */
+    public void close(final @NotNull Inventory inventory) {
+        if (this.isPreview(inventory)) {
+            this.release(inventory);
+        }
+    }
+
+    /**
+     * Returns whether the given inventory is an open preview.
+     */
+    public boolean isPreview(final @NotNull Inventory inventory) {
+        final Map<Inventory, Integer> viewers = this.viewers;
+        return !viewers.isEmpty() && viewers.containsKey(inventory);
+    }
+
+    /**
+     * Closes every open preview and stops tracking them. Used when the plugin is
+     * reloaded, since the previews would no longer be read-only afterwards.
+     */
+    public synchronized void closeAll(final @NotNull Plugin plugin) {
+        for (final Inventory inventory : this.viewers.keySet()) {
+            for (final HumanEntity viewer : List.copyOf(inventory.getViewers())) {
+                if (Bukkit.isOwnedByCurrentRegion(viewer)) {
+                    viewer.closeInventory();
+                } else if (plugin.isEnabled()) {
+                    viewer.getScheduler().run(plugin, task -> viewer.closeInventory(), null);
+                }
+            }
+        }
+        this.viewers = Map.of();
+    }
+
+    private synchronized void acquire(final @NotNull Inventory inventory) {
+        final Map<Inventory, Integer> copy = new IdentityHashMap<>(this.viewers);
+        copy.merge(inventory, 1, Integer::sum);
+        this.viewers = copy;
+    }
+
+    private synchronized void release(final @NotNull Inventory inventory) {
+        final Integer count = this.viewers.get(inventory);
+        if (count == null) {
+            return;
+        }
+
+        final Map<Inventory, Integer> copy = new IdentityHashMap<>(this.viewers);
+        if (count <= 1) {
+            copy.remove(inventory);
+        } else {
+            copy.put(inventory, count - 1);
+        }
+        this.viewers = copy.isEmpty() ? Map.of() : copy;
+    }
+
+}
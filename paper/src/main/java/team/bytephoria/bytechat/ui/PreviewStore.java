@@ -0,0 +1,504 @@
+package team.bytephoria.bytechat.ui;
+
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.bytephoria.bytechat.configuration.ChatConfiguration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Holds the preview menus behind tag links, keyed by snapshot id.
+ * <p>
+ * Click callbacks only capture the id of their snapshot, so the items they show
+ * are owned by this store rather than by callbacks that may live for an hour.
+ * The store is bounded in three ways:
+ * <ul>
+ *     <li>Each snapshot expires with its link, and never lives longer than the
+ *         configured maximum age.</li>
+ *     <li>Snapshots that have not been opened for a while are compacted into
+ *         their serialized form and restored on the next click.</li>
+ *     <li>When the held bytes exceed the configured cap, the least recently
+ *         used snapshots are evicted.</li>
+ * </ul>
+ * Live snapshots are accounted with a fixed estimate per item, since measuring
+ * them exactly would mean serializing every snapshot as it is taken.
+ * <p>
+ * Players often repeat a tag while their items stay the same. Snapshots taken
+ * through {@link #capture} are fingerprinted, and a capture of the same player
+ * and preview type within the deduplication window reuses the previous snapshot
+ * when its items are identical, instead of copying and storing them again.
+ */
+public final class PreviewStore {
+
+    /** Estimated heap held by a live, non-empty item stack. */
+    private static final long LIVE_ITEM_BYTES = 1024L;
+
+    /** Estimated heap held by an entry besides its items. */
+    private static final long ENTRY_OVERHEAD_BYTES = 128L;
+
+    /** Fraction of {@code max-bytes} the store is trimmed down to when it overflows. */
+    private static final double TRIM_RATIO = 0.9D;
+
+    /** The bounds of the current configuration, replaced as a whole on reload. */
+    private volatile Limits limits;
+
+    /** The latest capture of each player and preview type, for deduplication. */
+    private final Map<CaptureKey, Capture> latestCaptures = new ConcurrentHashMap<>();
+
+    /** Entries in access order, least recently used first. Guarded by {@code this}. */
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75F, true);
+
+    /** The estimated bytes held by all entries. Guarded by {@code this}. */
+    private long bytes;
+
+    private final AtomicLong nextId = new AtomicLong();
+
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    public PreviewStore(final @NotNull ChatConfiguration.Tags.PreviewStore configuration) {
+        this.limits = Limits.of(configuration);
+    }
+
+    /**
+     * Applies the bounds of a newly loaded configuration. Stored snapshots are
+     * kept, so links sent before a reload keep working; they are only evicted
+     * if they no longer fit in the new byte cap.
+     */
+    public void configure(final @NotNull ChatConfiguration.Tags.PreviewStore configuration) {
+        this.limits = Limits.of(configuration);
+        this.trim();
+    }
+
+    /**
+     * Stores a snapshot of the given live items, or reuses the previous snapshot
+     * of the same player and type if it was taken within the deduplication window
+     * and holds identical items.
+     *
+     * @param owner    the player whose items are previewed
+     * @param type     the type of preview
+     * @param items    the live items, which are not modified or retained
+     * @param lifetime how long the link to the snapshot stays valid
+     * @param factory  creates the menu, copying the items, when no snapshot is reused
+     * @return the id the menu can be retrieved with
+     */
+    public long capture(
+            final @NotNull UUID owner,
+            final @NotNull PreviewType type,
+            final @Nullable ItemStack @NotNull [] items,
+            final @NotNull Duration lifetime,
+            final @NotNull Function<ItemStack[], AbstractPreviewMenu> factory
+    ) {
+        final long dedupWindowNanos = this.limits.dedupWindowNanos();
+        if (dedupWindowNanos <= 0L) {
+            return this.put(factory.apply(items), lifetime);
+        }
+
+        final long now = System.nanoTime();
+        final long fingerprint = fingerprint(items);
+        final CaptureKey key = new CaptureKey(owner, type);
+
+        final Capture latest = this.latestCaptures.get(key);
+        if (latest != null
+                && latest.fingerprint() == fingerprint
+                && now - latest.capturedAt() < dedupWindowNanos
+                && this.reuse(latest.snapshotId(), items, now, lifetime)) {
+            this.reused.increment();
+            return latest.snapshotId();
+        }
+
+        final long id = this.put(factory.apply(items), lifetime);
+        this.latestCaptures.put(key, new Capture(fingerprint, id, now));
+        return id;
+    }
+
+    /**
+     * Stores a preview menu.
+     *
+     * @param menu     the menu to store
+     * @param lifetime how long the link to the menu stays valid
+     * @return the id the menu can be retrieved with
+     */
+    public long put(final @NotNull AbstractPreviewMenu menu, final @NotNull Duration lifetime) {
+        final Limits limits = this.limits;
+        final long now = System.nanoTime();
+        final long id = this.nextId.incrementAndGet();
+        final Entry entry = new Entry(id, menu, now + Math.min(lifetime.toNanos(), limits.maxAgeNanos()), now);
+
+        final boolean overflow;
+        synchronized (this) {
+            this.entries.put(id, entry);
+            this.bytes += entry.bytes;
+            overflow = this.bytes > limits.maxBytes();
+        }
+
+        if (overflow) {
+            this.trim();
+        }
+        return id;
+    }
+
+    /**
+     * Returns the menu stored under the given id, restoring it if it was compacted.
+     *
+     * @return the menu, or {@code null} if it expired or was evicted
+     */
+    public @Nullable AbstractPreviewMenu get(final long id) {
+        while (true) {
+            final long now = System.nanoTime();
+            final Entry entry;
+            final byte[][] compacted;
+            synchronized (this) {
+                entry = this.entries.get(id);
+                if (entry == null) {
+                    this.expired.increment();
+                    return null;
+                }
+
+                if (now - entry.expiresAt >= 0L) {
+                    this.remove(id, entry);
+                    this.expired.increment();
+                    return null;
+                }
+
+                entry.lastAccess = now;
+                if (entry.menu != null) {
+                    this.hits.increment();
+                    return entry.menu;
+                }
+
+                // Read under the lock: a concurrent click may restore the entry,
+                // clearing the field, as soon as the lock is released.
+                compacted = entry.compacted;
+            }
+
+            if (compacted == null) {
+                continue;
+            }
+
+            // Restore outside the lock; concurrent clicks may both deserialize, and the first one wins.
+            final AbstractPreviewMenu restored = entry.template.withContents(deserialize(compacted));
+            synchronized (this) {
+                this.hits.increment();
+                if (entry.menu != null) {
+                    return entry.menu;
+                }
+
+                if (entry.compacted == compacted && this.entries.containsKey(id)) {
+                    this.bytes -= entry.bytes;
+                    entry.restore(restored);
+                    this.bytes += entry.bytes;
+                }
+                return restored;
+            }
+        }
+    }
+
+    /**
+     * Forgets the latest captures of the given player, so their snapshots are
+     * no longer reused. The snapshots themselves stay valid until they expire.
+     */
+    public void invalidate(final @NotNull UUID owner) {
+        for (final PreviewType type : PreviewType.values()) {
+            this.latestCaptures.remove(new CaptureKey(owner, type));
+        }
+    }
+
+    /**
+     * Drops expired snapshots and compacts those that have not been opened
+     * recently. Meant to be run periodically off the main thread.
+     */
+    public void sweep() {
+        final Limits limits = this.limits;
+        final long compactAfterNanos = limits.compactAfterNanos();
+        final long now = System.nanoTime();
+        final List<Entry> toCompact = new ArrayList<>();
+
+        synchronized (this) {
+            final Iterator<Entry> iterator = this.entries.values().iterator();
+            while (iterator.hasNext()) {
+                final Entry entry = iterator.next();
+                if (now - entry.expiresAt >= 0L) {
+                    iterator.remove();
+                    this.bytes -= entry.bytes;
+                    this.evictions.increment();
+                } else if (compactAfterNanos > 0L && entry.menu != null && now - entry.lastAccess >= compactAfterNanos) {
+                    toCompact.add(entry);
+                }
+            }
+        }
+
+        // Serialization is the expensive part, so it runs without holding the lock.
+        for (final Entry entry : toCompact) {
+            final AbstractPreviewMenu menu = entry.menu;
+            if (menu == null) {
+                continue;
+            }
+
+            final byte[][] serialized = serialize(menu.contents());
+            synchronized (this) {
+                // Skip entries that were evicted or opened again in the meantime.
+                if (entry.menu == menu && now - entry.lastAccess >= compactAfterNanos && this.entries.containsKey(entry.id)) {
+                    this.bytes -= entry.bytes;
+                    entry.compact(serialized);
+                    this.bytes += entry.bytes;
+                    this.compactions.increment();
+                }
+            }
+        }
+
+        this.latestCaptures.values().removeIf(capture -> now - capture.capturedAt() >= limits.dedupWindowNanos());
+        this.trim();
+    }
+
+    /**
+     * Drops every stored snapshot.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.latestCaptures.clear();
+        this.bytes = 0L;
+    }
+
+    public @NotNull Stats stats() {
+        int compacted = 0;
+        final int size;
+        final long heldBytes;
+        synchronized (this) {
+            for (final Entry entry : this.entries.values()) {
+                if (entry.menu == null) {
+                    compacted++;
+                }
+            }
+            size = this.entries.size();
+            heldBytes = this.bytes;
+        }
+
+        return new Stats(
+                size,
+                compacted,
+                heldBytes,
+                this.reused.sum(),
+                this.hits.sum(),
+                this.expired.sum(),
+                this.evictions.sum(),
+                this.compactions.sum()
+        );
+    }
+
+    /**
+     * Evicts the least recently used snapshots until the store is back below
+     * {@link #TRIM_RATIO} of its byte cap.
+     */
+    private synchronized void trim() {
+        final long maxBytes = this.limits.maxBytes();
+        if (this.bytes <= maxBytes) {
+            return;
+        }
+
+        final long target = (long) (maxBytes * TRIM_RATIO);
+        final Iterator<Entry> iterator = this.entries.values().iterator();
+        while (this.bytes > target && iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            iterator.remove();
+            this.bytes -= entry.bytes;
+            this.evictions.increment();
+        }
+    }
+
+    /**
+     * Extends the stored snapshot to the new link's lifetime if it is still live
+     * and holds exactly the given items.
+     */
+    private synchronized boolean reuse(
+            final long id,
+            final @Nullable ItemStack @NotNull [] items,
+            final long now,
+            final @NotNull Duration lifetime
+    ) {
+        final Entry entry = this.entries.get(id);
+        if (entry == null || entry.menu == null || now - entry.expiresAt >= 0L
+                || !sameItems(entry.menu.contents(), items)) {
+            return false;
+        }
+
+        entry.expiresAt = Math.max(entry.expiresAt, now + Math.min(lifetime.toNanos(), this.limits.maxAgeNanos()));
+        return true;
+    }
+
+    /**
+     * Hashes the items slot by slot, treating air as an empty slot.
+     */
+    private static long fingerprint(final @Nullable ItemStack @NotNull [] items) {
+        long hash = items.length;
+        for (final ItemStack item : items) {
+            hash = hash * 31L + (isEmpty(item) ? 0 : item.hashCode());
+        }
+        // Mix the bits, so similar inventories do not produce close fingerprints.
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static boolean sameItems(final @Nullable ItemStack @NotNull [] snapshot, final @Nullable ItemStack @NotNull [] items) {
+        if (snapshot.length != items.length) {
+            return false;
+        }
+
+        for (int i = 0; i < items.length; i++) {
+            final ItemStack item = isEmpty(items[i]) ? null : items[i];
+            if (!Objects.equals(snapshot[i], item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isEmpty(final @Nullable ItemStack item) {
+        return item == null || item.getType().isAir();
+    }
+
+    private void remove(final long id, final @NotNull Entry entry) {
+        this.entries.remove(id);
+        this.bytes -= entry.bytes;
+    }
+
+    /**
+     * Serializes each item with {@link ItemStack#serializeAsBytes()}, keeping
+     * empty slots as {@code null}.
+     */
+    private static byte @Nullable [] @NotNull [] serialize(final @Nullable ItemStack @NotNull [] contents) {
+        final byte[][] serialized = new byte[contents.length][];
+        for (int i = 0; i < contents.length; i++) {
+            final ItemStack item = contents[i];
+            if (item != null) {
+                serialized[i] = item.serializeAsBytes();
+            }
+        }
+        return serialized;
+    }
+
+    private static @Nullable ItemStack @NotNull [] deserialize(final byte @Nullable [] @NotNull [] serialized) {
+        final ItemStack[] contents = new ItemStack[serialized.length];
+        for (int i = 0; i < serialized.length; i++) {
+            final byte[] item = serialized[i];
+            if (item != null) {
+                contents[i] = ItemStack.deserializeBytes(item);
+            }
+        }
+        return contents;
+    }
+
+    private static long estimateLiveBytes(final @Nullable ItemStack @NotNull [] contents) {
+        long bytes = ENTRY_OVERHEAD_BYTES;
+        for (final ItemStack item : contents) {
+            if (item != null) {
+                bytes += LIVE_ITEM_BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * A stored snapshot, either live or compacted. Mutable state is guarded by
+     * the owning store.
+     */
+    private static final class Entry {
+
+        /** The menu the snapshot belongs to, used to rebuild it once compacted. */
+        private final AbstractPreviewMenu template;
+        private final long id;
+        private long expiresAt;
+
+        private @Nullable AbstractPreviewMenu menu;
+        private byte @Nullable [] @Nullable [] compacted;
+        private long bytes;
+        private long lastAccess;
+
+        private Entry(final long id, final @NotNull AbstractPreviewMenu menu, final long expiresAt, final long now) {
+            this.template = menu.withContents(new ItemStack[0]);
+            this.id = id;
+            this.expiresAt = expiresAt;
+            this.lastAccess = now;
+            this.restore(menu);
+        }
+
+        private void compact(final byte @Nullable [] @NotNull [] serialized) {
+            long bytes = ENTRY_OVERHEAD_BYTES;
+            for (final byte[] item : serialized) {
+                if (item != null) {
+                    bytes += item.length;
+                }
+            }
+
+            this.menu = null;
+            this.compacted = serialized;
+            this.bytes = bytes;
+        }
+
+        private void restore(final @NotNull AbstractPreviewMenu menu) {
+            this.menu = menu;
+            this.compacted = null;
+            this.bytes = estimateLiveBytes(menu.contents());
+        }
+    }
+
+    private record CaptureKey(@NotNull UUID owner, @NotNull PreviewType type) {
+    }
+
+    private record Capture(long fingerprint, long snapshotId, long capturedAt) {
+    }
+
+    private record Limits(long maxBytes, long maxAgeNanos, long compactAfterNanos, long dedupWindowNanos) {
+
+        private static @NotNull Limits of(final @NotNull ChatConfiguration.Tags.PreviewStore configuration) {
+            return new Limits(
+                    configuration.maxBytes(),
+                    TimeUnit.SECONDS.toNanos(configuration.maxAgeSeconds()),
+                    TimeUnit.SECONDS.toNanos(configuration.compactAfterSeconds()),
+                    TimeUnit.MILLISECONDS.toNanos(configuration.dedupWindowMillis())
+            );
+        }
+    }
+
+    /**
+     * A point-in-time view of the store.
+     *
+     * @param entries     the number of stored snapshots
+     * @param compacted   how many of them are held in serialized form
+     * @param bytes       the estimated bytes held by all snapshots
+     * @param reused      captures that reused an identical snapshot
+     * @param hits        clicks that found their snapshot
+     * @param expired     clicks whose snapshot had expired or been evicted
+     * @param evictions   snapshots dropped because they expired or the store was full
+     * @param compactions snapshots compacted into serialized form
+     */
+    public record Stats(
+            int entries,
+            int compacted,
+            long bytes,
+            long reused,
+            long hits,
+            long expired,
+            long evictions,
+            long compactions
+    ) {
+    }
+
+}
@@ -0,0 +1,13 @@
+package team.bytephoria.bytechat.ui;
+
+/**
+ * The kinds of preview a tag can link to. Snapshots are only reused between
+ * tags of the same type.
+ */
+public enum PreviewType {
+
+    INVENTORY,
+    ARMOR,
+    ENDER_CHEST
+
+}
@@ -1,20 +1,45 @@
 package team.bytephoria.bytechat.ui.listener;
 
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.inventory.Inventory;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.jetbrains.annotations.NotNull;
-import team.bytephoria.bytechat.ui.AbstractPreviewMenu;
+import team.bytephoria.bytechat.ui.PreviewInventoryTracker;
 
+/**
+ * Keeps preview inventories read-only.
+ * <p>
+ * {@link InventoryClickEvent#getInventory()} is the top inventory of the view,
+ * so clicks in the player's own inventory while a preview is open are covered
+ * too, including shift-moves and hotbar swaps into the preview.
+ */
 public final class InventoryClickListener implements Listener {
 
+    private final PreviewInventoryTracker previewInventoryTracker;
+    public InventoryClickListener(final @NotNull PreviewInventoryTracker previewInventoryTracker) {
+        this.previewInventoryTracker = previewInventoryTracker;
+    }
+
     @EventHandler
     public void onInventoryClickEvent(final @NotNull InventoryClickEvent clickEvent) {
-        final Inventory inventory = clickEvent.getInventory();
-        if (inventory.getHolder() instanceof AbstractPreviewMenu) {
+        if (this.previewInventoryTracker.isPreview(clickEvent.getInventory())) {
             clickEvent.setCancelled(true);
         }
     }
 
+    @EventHandler
+    public void onInventoryDragEvent(final @NotNull InventoryDragEvent dragEvent) {
+        if (this.previewInventoryTracker.isPreview(dragEvent.getInventory())) {
+            dragEvent.setCancelled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryCloseEvent(final @NotNull InventoryCloseEvent closeEvent) {
+        this.previewInventoryTracker.close(closeEvent.getInventory());
+    }
+
 }
@@ -1,10 +1,14 @@
 package team.bytephoria.bytechat.util;
 
 import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TranslatableComponent;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import team.bytephoria.bytechat.util.exception.NonInstantiableClassException;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Utility class for working with {@link Component} objects.
@@ -22,6 +26,10 @@ public final class ComponentUtil {
      * <p>
      * The resulting {@link Component} will include all elements in the given order,
      * with a newline between each of them. Empty collections return {@link Component#empty()}.
+     * <p>
+     * Every following line is attached as a child of the first one, so the first
+     * line's style is inherited by the rest. The child list is allocated once with
+     * its final size instead of being copied on every append.
      *
      * @param components the components to join
      * @return a single {@link Component} containing all given components separated by newlines
@@ -32,13 +40,72 @@ public final class ComponentUtil {
             return Component.empty();
         }
 
-        Component result = iterator.next();
+        final Component first = iterator.next();
+        if (!iterator.hasNext()) {
+            return first;
+        }
+
+        final List<Component> firstChildren = first.children();
+        final List<Component> children = new ArrayList<>(firstChildren.size() + (components.size() - 1) * 2);
+        children.addAll(firstChildren);
+
         while (iterator.hasNext()) {
-            result = result
-                    .appendNewline()
-                    .append(iterator.next());
+            children.add(Component.newline());
+            children.add(iterator.next());
         }
 
-        return result;
+        return first.children(children);
+    }
+
+    /**
+     * Removes click events, hover events and insertions from a component and all of its children.
+     * <p>
+     * The arguments of translatable components are components of their own, which
+     * the player can write with their own events (for example
+     * {@code <lang:key:'<click:run_command:/op x>...'>}), so they are cleaned as well.
+     * Hover events are dropped as a whole, along with the components they show.
+     * Subtrees without any interactive event are shared with the input component.
+     *
+     * @param component the component to clean
+     * @return the component without any interactive event
+     */
+    public static @NotNull Component stripInteractivity(final @NotNull Component component) {
+        Component result = component;
+        if (component.clickEvent() != null || component.hoverEvent() != null || component.insertion() != null) {
+            result = component.style(component.style()
+                    .clickEvent(null)
+                    .hoverEvent(null)
+                    .insertion(null));
+        }
+
+        if (result instanceof TranslatableComponent translatable) {
+            final List<Component> arguments = stripAll(translatable.args());
+            if (arguments != null) {
+                result = translatable.args(arguments);
+            }
+        }
+
+        final List<Component> children = stripAll(component.children());
+        return children == null ? result : result.children(children);
+    }
+
+    /**
+     * Cleans every component of the list.
+     *
+     * @return the cleaned components, or {@code null} if none of them had to change
+     */
+    private static @Nullable List<Component> stripAll(final @NotNull List<Component> components) {
+        List<Component> stripped = null;
+        for (int i = 0; i < components.size(); i++) {
+            final Component component = components.get(i);
+            final Component strippedComponent = stripInteractivity(component);
+            if (strippedComponent != component) {
+                if (stripped == null) {
+                    stripped = new ArrayList<>(components);
+                }
+                stripped.set(i, strippedComponent);
+            }
+        }
+        return stripped;
     }
 }
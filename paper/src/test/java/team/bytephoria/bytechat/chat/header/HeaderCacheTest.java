@@ -0,0 +1,139 @@
+package team.bytephoria.bytechat.chat.header;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.ClickEvent;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.spongepowered.configurate.ConfigurateException;
+import org.spongepowered.configurate.yaml.YamlConfigurationLoader;
+import team.bytephoria.bytechat.chat.element.ChatElement;
+import team.bytephoria.bytechat.chat.format.ChatFormat;
+import team.bytephoria.bytechat.chat.template.ChatElementTemplate;
+import team.bytephoria.bytechat.chat.template.PlaceholderTable;
+import team.bytephoria.bytechat.configuration.ChatConfiguration;
+import team.bytephoria.bytechat.configuration.FormatConfiguration;
+import team.bytephoria.bytechat.serializer.component.ComponentSerializerAdapter;
+import team.bytephoria.bytechat.serializer.component.ComponentSerializerFactory;
+
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeaderCacheTest {
+
+    @Test
+    void shippedFormatsAreCacheable() throws ConfigurateException {
+        final List<ChatFormat> formats = shippedFormats();
+        assertFalse(formats.isEmpty());
+
+        for (final ChatFormat format : formats) {
+            assertTrue(format.isHeaderCacheable(), () -> format.id() + " is not cacheable");
+        }
+    }
+
+    @Test
+    void secondMessageOfPlayerHitsCache() throws ConfigurateException {
+        final ChatFormat format = shippedFormats().get(0);
+        final HeaderCache headerCache = new HeaderCache(new ChatConfiguration.HeaderCache());
+        final Player player = player(UUID.randomUUID());
+        final Component displayName = Component.text("Steve");
+        final AtomicInteger renders = new AtomicInteger();
+
+        final List<Component> first = headerCache.runs(player, displayName, format, () -> {
+            renders.incrementAndGet();
+            return List.of(Component.text("Steve: "), Component.empty());
+        });
+        final List<Component> second = headerCache.runs(player, displayName, format, () -> {
+            renders.incrementAndGet();
+            return List.of(Component.text("Steve: "), Component.empty());
+        });
+
+        assertSame(first, second);
+        assertEquals(1, renders.get());
+        assertEquals(1L, headerCache.stats().hits());
+        assertEquals(1L, headerCache.stats().misses());
+    }
+
+    @Test
+    void formatReferencingMessageOutsideMessageElementIsNotCacheable() {
+        final ComponentSerializerAdapter adapter = ComponentSerializerFactory.create("MINI_MESSAGE");
+        final ChatElement name = new ChatElement("{player}", List.of("Said: {message}"), null, null);
+        final ChatElement message = new ChatElement("{message}", null, null, null);
+
+        final ChatFormat format = new ChatFormat(
+                "quoting",
+                "",
+                0,
+                Map.of("name", name, "message", message),
+                List.of(ChatElementTemplate.compile(name, adapter, null), ChatElementTemplate.compile(message, adapter, null)),
+                PlaceholderTable.empty()
+        );
+
+        assertFalse(format.isHeaderCacheable());
+    }
+
+    /**
+     * Compiles the formats of the bundled formats.yml the way the format loader does.
+     */
+    private static @NotNull List<ChatFormat> shippedFormats() throws ConfigurateException {
+        final URL resource = Objects.requireNonNull(HeaderCacheTest.class.getClassLoader().getResource("formats.yml"));
+        final FormatConfiguration configuration = YamlConfigurationLoader.builder()
+                .url(resource)
+                .build()
+                .load()
+                .get(FormatConfiguration.class);
+
+        final ComponentSerializerAdapter adapter = ComponentSerializerFactory.create("MINI_MESSAGE");
+        final List<ChatFormat> formats = new ArrayList<>();
+        Objects.requireNonNull(configuration).formats().forEach((id, formatConfiguration) -> {
+            final Map<String, ChatElement> elements = new LinkedHashMap<>();
+            final List<ChatElementTemplate> templates = new ArrayList<>();
+            formatConfiguration.elements().forEach((elementId, elementConfiguration) -> {
+                final ChatElement element = new ChatElement(
+                        elementConfiguration.text(),
+                        elementConfiguration.hover(),
+                        ClickEvent.Action.valueOf(elementConfiguration.click().action().toUpperCase()),
+                        elementConfiguration.click().value()
+                );
+                elements.put(elementId, element);
+                templates.add(ChatElementTemplate.compile(element, adapter, null));
+            });
+
+            formats.add(new ChatFormat(
+                    id,
+                    formatConfiguration.permission(),
+                    formatConfiguration.priority(),
+                    elements,
+                    List.copyOf(templates),
+                    PlaceholderTable.empty()
+            ));
+        });
+        return formats;
+    }
+
+    private static @NotNull Player player(final @NotNull UUID uuid) {
+        return (Player) Proxy.newProxyInstance(
+                HeaderCacheTest.class.getClassLoader(),
+                new Class<?>[]{Player.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getUniqueId" -> uuid;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                }
+        );
+    }
+
+}
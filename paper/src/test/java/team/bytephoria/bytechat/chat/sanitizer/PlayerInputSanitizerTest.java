@@ -0,0 +1,125 @@
+package team.bytephoria.bytechat.chat.sanitizer;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.TranslatableComponent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import team.bytephoria.bytechat.serializer.component.ComponentSerializerFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class PlayerInputSanitizerTest {
+
+    private static final String[] PAYLOADS = {
+            "<click:run_command:/op x>click me</click>",
+            "<hover:show_text:'hi'>hover me</hover>",
+            "<insert:/op x>shift-click me</insert>",
+            "<lang:chat.type.text:'<click:run_command:/op x>name</click>':'message'>",
+            "<lang:chat.type.text:'<lang:chat.type.text:\"<click:run_command:/op x>deep</click>\":b>':c>",
+            "&aplain &lcolors",
+    };
+
+    @ParameterizedTest
+    @ValueSource(strings = {"MINI_MESSAGE", "LIMITED_MINI_MESSAGE", "LEGACY_AMPERSAND", "PLAIN"})
+    void removesInteractivityWhicheverEngineIsSelected(final @NotNull String engine) {
+        final PlayerInputSanitizer sanitizer = new PlayerInputSanitizer(ComponentSerializerFactory.create(engine));
+
+        for (final String payload : PAYLOADS) {
+            final Component sanitized = sanitizer.sanitize(payload, true);
+            assertFalse(isInteractive(sanitized), () -> engine + " kept an event in " + payload);
+        }
+    }
+
+    @Test
+    void formattingCarriesAcrossResolvedTokens() {
+        final PlayerInputSanitizer sanitizer = new PlayerInputSanitizer(ComponentSerializerFactory.create("MINI_MESSAGE"));
+
+        // "<red>hi @Steve there</red>" with the mention resolved by an earlier stage.
+        final List<Component> segments = sanitizer.sanitize(List.of("<red>hi ", " <bold>there</red>"), true);
+
+        assertEquals(2, segments.size());
+        assertEquals("hi ", plain(segments.get(0)));
+        assertEquals(" there", plain(segments.get(1)));
+        assertEquals(NamedTextColor.RED, styleOf(segments.get(0), "hi ").color());
+        assertEquals(NamedTextColor.RED, styleOf(segments.get(1), " ").color());
+        assertEquals(NamedTextColor.RED, styleOf(segments.get(1), "there").color());
+        assertEquals(TextDecoration.State.TRUE, styleOf(segments.get(1), "there").decoration(TextDecoration.BOLD));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"MINI_MESSAGE", "LIMITED_MINI_MESSAGE", "LEGACY_AMPERSAND", "PLAIN"})
+    void spanIsCutBackIntoItsSegments(final @NotNull String engine) {
+        final PlayerInputSanitizer sanitizer = new PlayerInputSanitizer(ComponentSerializerFactory.create(engine));
+
+        final List<Component> segments = sanitizer.sanitize(List.of("hi ", " there ", "!"), true);
+
+        assertEquals(List.of("hi ", " there ", "!"), segments.stream().map(PlayerInputSanitizerTest::plain).toList());
+    }
+
+    @Test
+    void segmentsStayPlainWithoutFormatting() {
+        final PlayerInputSanitizer sanitizer = new PlayerInputSanitizer(ComponentSerializerFactory.create("MINI_MESSAGE"));
+
+        final List<Component> segments = sanitizer.sanitize(List.of("<red>hi ", "", " there</red>"), false);
+
+        assertEquals(3, segments.size());
+        assertEquals("hi ", plain(segments.get(0)));
+        assertEquals("", plain(segments.get(1)));
+        assertEquals(" there", plain(segments.get(2)));
+        assertEquals(Style.empty(), styleOf(segments.get(2), " there"));
+    }
+
+    private static @NotNull String plain(final @NotNull Component component) {
+        return PlainTextComponentSerializer.plainText().serialize(component);
+    }
+
+    /**
+     * Returns the style of the text leaf with the given content.
+     */
+    private static @Nullable Style styleOf(final @NotNull Component component, final @NotNull String content) {
+        if (component instanceof TextComponent text && text.content().equals(content)) {
+            return text.style();
+        }
+
+        for (final Component child : component.children()) {
+            final Style style = styleOf(child, content);
+            if (style != null) {
+                return style;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isInteractive(final @NotNull Component component) {
+        if (component.clickEvent() != null || component.hoverEvent() != null || component.insertion() != null) {
+            return true;
+        }
+
+        if (component instanceof TranslatableComponent translatable) {
+            for (final Component argument : translatable.args()) {
+                if (isInteractive(argument)) {
+                    return true;
+                }
+            }
+        }
+
+        for (final Component child : component.children()) {
+            if (isInteractive(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}